@@ -24,7 +24,12 @@
 
 package sumi;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.ib67.sumi.api.JsonCursor;
+import io.ib67.sumi.api.JsonQuery;
+import io.ib67.sumi.api.Projection;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
@@ -34,12 +39,17 @@ import org.openjdk.jmh.infra.Blackhole;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
 @State(Scope.Benchmark)
 public class JsonParseBenchmark {
     private static final ObjectMapper om = new ObjectMapper();
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final io.ib67.sumi.api.JsonParser UNINTERNED = io.ib67.sumi.api.JsonParser.withSymbols(null);
+    private static final JsonQuery AUTHOR_LOGINS = JsonQuery.compile("/*/author/login");
+    private static final Projection RELEASE_SUMMARY = Projection.of("[*].id", "[*].tag_name", "[*].author.login");
     private String text;
     private byte[] bytes;
 
@@ -61,8 +71,89 @@ public class JsonParseBenchmark {
         //b.consume(io.ib67.sumi.api.JsonParser.DEFAULT.parseString(text));
     }
 
+    @Benchmark
+    public void SumiUninternedParse(Blackhole b) {
+        b.consume(UNINTERNED.parseBytes(bytes));
+    }
+
+    @Benchmark
+    public void SumiStreamParse(Blackhole b) {
+        b.consume(io.ib67.sumi.api.JsonParser.DEFAULT.parseStream(new ByteArrayInputStream(bytes)));
+    }
+
+    @Benchmark
+    public void SumiTapeParse(Blackhole b) {
+        b.consume(io.ib67.sumi.api.JsonParser.DEFAULT.parseTape(ByteBuffer.wrap(bytes)));
+    }
+
+    @Benchmark
+    public void SumiLazyPick(Blackhole b) {
+        final var releases = io.ib67.sumi.api.JsonParser.DEFAULT.parseLazy(ByteBuffer.wrap(bytes)).getAsJsonArray();
+        for (int i = 0; i < releases.size(); i++) {
+            final var release = releases.get(i).getAsJsonObject();
+            b.consume(release.getProperty("id"));
+            b.consume(release.getProperty("tag_name"));
+            b.consume(release.getProperty("author").getAsJsonObject().getProperty("login"));
+        }
+    }
+
+    @Benchmark
+    public void SumiQueryPick(Blackhole b) {
+        b.consume(io.ib67.sumi.api.JsonParser.DEFAULT.query(ByteBuffer.wrap(bytes), AUTHOR_LOGINS));
+    }
+
+    @Benchmark
+    public void SumiProjectedPick(Blackhole b) {
+        b.consume(io.ib67.sumi.api.JsonParser.DEFAULT.parseProjected(ByteBuffer.wrap(bytes), RELEASE_SUMMARY));
+    }
+
+    @Benchmark
+    public void SumiEagerPick(Blackhole b) {
+        final var releases = io.ib67.sumi.api.JsonParser.DEFAULT.parseBytes(bytes).getAsJsonArray();
+        for (int i = 0; i < releases.size(); i++) {
+            final var release = releases.get(i).getAsJsonObject();
+            b.consume(release.getProperty("id"));
+            b.consume(release.getProperty("tag_name"));
+            b.consume(release.getProperty("author").getAsJsonObject().getProperty("login"));
+        }
+    }
+
     // @Benchmark
     public void JacksonJsonParse(Blackhole b) throws IOException {
         b.consume(om.readTree(bytes));
     }
+
+    @Benchmark
+    public void SumiCursorScan(Blackhole b) {
+        final var cursor = io.ib67.sumi.api.JsonParser.DEFAULT.cursor(ByteBuffer.wrap(bytes));
+        int event;
+        while ((event = cursor.nextEvent()) != JsonCursor.EOF) {
+            switch (event) {
+                case JsonCursor.LITERAL_INTEGER -> b.consume(cursor.currentLong());
+                case JsonCursor.LITERAL_DOUBLE -> b.consume(cursor.currentDouble());
+                case JsonCursor.LITERAL_TEXT -> b.consume(cursor.tokenEnd() - cursor.tokenStart());
+                default -> b.consume(event);
+            }
+        }
+    }
+
+    @Benchmark
+    public void SumiValidate(Blackhole b) {
+        b.consume(io.ib67.sumi.api.JsonParser.DEFAULT.validate(ByteBuffer.wrap(bytes)));
+    }
+
+    @Benchmark
+    public void JacksonStreamingScan(Blackhole b) throws IOException {
+        try (final var parser = jsonFactory.createParser(bytes)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                switch (token) {
+                    case VALUE_NUMBER_INT -> b.consume(parser.getLongValue());
+                    case VALUE_NUMBER_FLOAT -> b.consume(parser.getDoubleValue());
+                    case VALUE_STRING, FIELD_NAME -> b.consume(parser.getTextLength());
+                    default -> b.consume(token);
+                }
+            }
+        }
+    }
 }
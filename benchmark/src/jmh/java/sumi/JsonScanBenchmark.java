@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sumi;
+
+import io.ib67.sumi.api.JsonCursor;
+import io.ib67.sumi.api.JsonParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Compares the scanning modes of the tokenizer on heap and direct buffers. The mode is fixed per JVM, so every mode
+ * gets its own fork.
+ */
+@State(Scope.Benchmark)
+public class JsonScanBenchmark {
+    @Param({"test.json", "strings"})
+    private String corpus;
+    @Param({"heap", "direct"})
+    private String memory;
+    private ByteBuffer input;
+
+    @Setup
+    public void setup() throws IOException {
+        final var bytes = corpus.equals("strings") ? stringHeavyCorpus() : Files.readAllBytes(Path.of(corpus));
+        input = memory.equals("direct") ? ByteBuffer.allocateDirect(bytes.length).put(bytes).flip() : ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * About 1MB of objects holding long texts, a few of them with escapes.
+     */
+    private static byte[] stringHeavyCorpus() {
+        final var random = new Random(42);
+        final var sb = new StringBuilder("[");
+        for (int i = 0; i < 4000; i++) {
+            if (i != 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(i).append(",\"text\":\"");
+            final var len = 32 + random.nextInt(384);
+            for (int j = 0; j < len; j++) {
+                sb.append(random.nextInt(8) == 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+            }
+            if (random.nextInt(8) == 0) {
+                sb.append("\\\"quoted\\\"");
+            }
+            sb.append("\"}");
+        }
+        return sb.append(']').toString().getBytes();
+    }
+
+    private void scan(Blackhole b) {
+        final var cursor = JsonParser.DEFAULT.cursor(input);
+        int event;
+        while ((event = cursor.nextEvent()) != JsonCursor.EOF) {
+            b.consume(event == JsonCursor.LITERAL_TEXT ? cursor.tokenEnd() : event);
+        }
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = "-Dsumi.scanner=scalar")
+    public void scalar(Blackhole b) {
+        scan(b);
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = "-Dsumi.scanner=swar")
+    public void swar(Blackhole b) {
+        scan(b);
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Dsumi.scanner=vector"})
+    public void vector(Blackhole b) {
+        scan(b);
+    }
+}
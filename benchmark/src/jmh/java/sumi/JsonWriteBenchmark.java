@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sumi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import io.ib67.sumi.api.JsonParser;
+import io.ib67.sumi.api.JsonWriter;
+import io.ib67.sumi.api.object.JsonValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Serializes the tree of test.json, which each library parsed beforehand.
+ */
+@State(Scope.Benchmark)
+public class JsonWriteBenchmark {
+    private static final ObjectMapper om = new ObjectMapper();
+    private static final Gson gson = new Gson();
+    private JsonValue sumiTree;
+    private JsonElement gsonTree;
+    private JsonNode jacksonTree;
+    private JsonWriter reusedWriter;
+
+    @Setup
+    public void setup() throws IOException {
+        final var bytes = Files.readAllBytes(Path.of("test.json"));
+        sumiTree = JsonParser.DEFAULT.parseBytes(bytes);
+        gsonTree = com.google.gson.JsonParser.parseString(new String(bytes));
+        jacksonTree = om.readTree(bytes);
+        reusedWriter = JsonWriter.toBytes();
+    }
+
+    @Benchmark
+    public void SumiToJson(Blackhole b) {
+        b.consume(sumiTree.toJSON());
+    }
+
+    @Benchmark
+    public void SumiWriteReused(Blackhole b) {
+        reusedWriter.reset();
+        reusedWriter.value(sumiTree);
+        b.consume(reusedWriter);
+    }
+
+    @Benchmark
+    public void SumiWriteStream(Blackhole b) {
+        try (final var writer = JsonWriter.to(OutputStream.nullOutputStream())) {
+            writer.value(sumiTree);
+        }
+    }
+
+    @Benchmark
+    public void GsonToJson(Blackhole b) {
+        b.consume(gson.toJson(gsonTree));
+    }
+
+    @Benchmark
+    public void JacksonWriteBytes(Blackhole b) throws IOException {
+        b.consume(om.writeValueAsBytes(jacksonTree));
+    }
+}
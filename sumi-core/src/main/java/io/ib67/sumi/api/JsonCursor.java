@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.api;
+
+import io.ib67.sumi.api.exception.JsonParseException;
+import io.ib67.sumi.api.object.primitive.JsonNumber;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+/**
+ * A pull-style, allocation-free view over a json token stream.
+ * <p>
+ * Call {@link #nextEvent()} to advance, then read the current token through the {@code current*} accessors.
+ * Event codes share their ordinals with {@code TokenType}.
+ */
+@ApiStatus.AvailableSince("0.1.0")
+public interface JsonCursor {
+    int OBJECT_BEGIN = 0;
+    int OBJECT_END = 1;
+    int ARRAY_BEGIN = 2;
+    int ARRAY_END = 3;
+    int LITERAL_TEXT = 4;
+    int LITERAL_INTEGER = 5;
+    int LITERAL_DOUBLE = 6;
+    int NULL = 7;
+    int COMMA = 8;
+    int SEMICOLON = 9;
+    int TRUE = 10;
+    int FALSE = 11;
+    int EOF = 12;
+
+    /**
+     * Advances to the next token.
+     *
+     * @return the event code of the new current token
+     */
+    int nextEvent();
+
+    int currentEvent();
+
+    /**
+     * When the current token is {@link #OBJECT_BEGIN} or {@link #ARRAY_BEGIN}, skips to its matching end token.
+     * Does nothing for other tokens.
+     */
+    void skipChildren();
+
+    /**
+     * @return the buffer which {@link #tokenStart()} and {@link #tokenEnd()} are pointing into
+     */
+    ByteBuffer source();
+
+    /**
+     * @return absolute index of the first byte of the current token. For texts, the opening quote is excluded.
+     */
+    int tokenStart();
+
+    /**
+     * @return absolute index after the last byte of the current token. For texts, the closing quote is excluded.
+     */
+    int tokenEnd();
+
+    /**
+     * @return true if the current text contains escape sequences, so its raw bytes differ from its value
+     */
+    boolean hasEscapes();
+
+    /**
+     * @return absolute index of the next unread byte
+     */
+    int position();
+
+    String currentString();
+
+    /**
+     * Same as {@link #currentString()}, for texts which are keys of objects. Cursors with a {@link SymbolTable}
+     * return canonical instances for repeated keys.
+     */
+    default String currentKey() {
+        return currentString();
+    }
+
+    int currentInt();
+
+    long currentLong();
+
+    double currentDouble();
+
+    BigDecimal currentBigDecimal();
+
+    /**
+     * @return the current number as the narrowest {@link JsonNumber} that holds it without loss
+     */
+    JsonNumber currentNumber();
+
+    /**
+     * Creates an exception at the current token, or at the end of the input after {@link #EOF}. It finds the line
+     * and column of the token in {@link #source()} only when they are asked for.
+     */
+    default JsonParseException error(String message) {
+        final var at = switch (currentEvent()) {
+            case EOF -> position();
+            // points at the opening quote.
+            case LITERAL_TEXT -> tokenStart() - 1;
+            default -> tokenStart();
+        };
+        return new JsonParseException(message, source(), at);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.api;
+
+import io.ib67.sumi.api.object.JsonValue;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A non-blocking cursor over input which arrives in chunks.
+ * <p>
+ * Chunks are parsed in place. When the end of a chunk is reached, events report {@link #NOT_AVAILABLE} and the
+ * incomplete token at the end, if any, is copied, so the chunk can be reused for the next {@link #feed(ByteBuffer)}.
+ * Texts and numbers may be split at any byte. Call {@link #endOfInput()} after the last chunk.
+ * <p>
+ * Values can be read as events through the {@link JsonCursor} methods, or as trees by {@link #nextValue()}, but they
+ * should not be mixed within a value.
+ * <p>
+ * Errors report their offset, line and column in the whole input, while {@link #position()} and the token indexes are
+ * relative to the buffered chunk.
+ */
+@ApiStatus.AvailableSince("0.1.0")
+public interface JsonFeeder extends JsonCursor {
+    /**
+     * More input is needed to read the next token.
+     */
+    int NOT_AVAILABLE = -1;
+
+    /**
+     * Provides the next chunk, from its position to its limit. The position of the chunk is not changed, and the
+     * chunk must not be changed until {@link #NOT_AVAILABLE} is reported again.
+     *
+     * @throws IllegalStateException if the former chunk is not used up yet, or the input has ended
+     */
+    void feed(ByteBuffer chunk);
+
+    /**
+     * Tells that no more chunks will be fed. Tokens which reach the end of the input are completed, then
+     * {@link #EOF} is reported.
+     */
+    void endOfInput();
+
+    /**
+     * Reads until a top-level value is complete. The values read so far are kept when it runs out of input, so it
+     * can be called again after feeding.
+     *
+     * @return the next complete value, or null if {@link #currentEvent()} is {@link #NOT_AVAILABLE} or {@link #EOF}
+     */
+    JsonValue nextValue();
+
+    /**
+     * Like {@link JsonCursor#skipChildren()}, but if the input runs out before the end token,
+     * {@link #NOT_AVAILABLE} is reported and the skipping goes on in the next {@link #nextEvent()}.
+     */
+    @Override
+    void skipChildren();
+}
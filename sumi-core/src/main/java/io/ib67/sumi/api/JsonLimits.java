@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.api;
+
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Bounds of an input which is checked by {@link JsonParser#validate(java.nio.ByteBuffer, JsonLimits)}. Lengths are counted in
+ * bytes of the encoded input.
+ *
+ * @param maxDepth        the most objects and arrays which are nested in each other
+ * @param maxBytes        the longest input, from its position to its limit
+ * @param maxStringLength the longest text or key, between its double quotes and before unescaping
+ */
+@ApiStatus.AvailableSince("0.1.0")
+public record JsonLimits(int maxDepth, int maxBytes, int maxStringLength) {
+    public static final JsonLimits NONE = new JsonLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    /**
+     * Only bounds the depth, so a hostile input can't take a deep stack from the readers later.
+     */
+    public static final JsonLimits DEFAULT = NONE.withMaxDepth(512);
+
+    public JsonLimits {
+        if (maxDepth < 0 || maxBytes < 0 || maxStringLength < 0) {
+            throw new IllegalArgumentException("Limits must not be negative");
+        }
+    }
+
+    public JsonLimits withMaxDepth(int maxDepth) {
+        return new JsonLimits(maxDepth, maxBytes, maxStringLength);
+    }
+
+    public JsonLimits withMaxBytes(int maxBytes) {
+        return new JsonLimits(maxDepth, maxBytes, maxStringLength);
+    }
+
+    public JsonLimits withMaxStringLength(int maxStringLength) {
+        return new JsonLimits(maxDepth, maxBytes, maxStringLength);
+    }
+}
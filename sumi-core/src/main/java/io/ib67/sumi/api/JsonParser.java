@@ -25,23 +25,198 @@
 package io.ib67.sumi.api;
 
 import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.api.tape.JsonTape;
+import io.ib67.sumi.impl.StructuralJsonParser;
 import io.ib67.sumi.impl.SumiJsonParser;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.InputStream;
+import java.lang.reflect.Type;
 import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface JsonParser {
 
     static JsonParser DEFAULT = new SumiJsonParser();
 
+    /**
+     * A parser which indexes all structural characters of the input in one pass first, then builds the tree by
+     * walking the index. It checks separators strictly and holds an int for every token during parsing.
+     */
+    static JsonParser structural() {
+        return StructuralJsonParser.INSTANCE;
+    }
+
+    /**
+     * A parser whose keys of objects are canonicalized by {@code symbols} instead of {@link SymbolTable#shared()}.
+     * Pass null to decode every key into a new string.
+     */
+    static JsonParser withSymbols(@Nullable SymbolTable symbols) {
+        return new SumiJsonParser(symbols);
+    }
+
+    /**
+     * A parser which rejects values nested deeper than {@code maxDepth}, instead of {@link JsonLimits#DEFAULT}. Trees
+     * are built without recursion, so the depth is not bounded by the stack of the thread.
+     */
+    static JsonParser withMaxDepth(int maxDepth) {
+        return new SumiJsonParser(SymbolTable.shared(), maxDepth);
+    }
+
     JsonValue parseString(String input);
 
     JsonValue parseBuffer(ByteBuffer buffer);
 
     JsonValue parseBytes(byte[] bytes);
 
+    /**
+     * Parses a large top-level array on multiple threads of the common {@link java.util.concurrent.ForkJoinPool}.
+     * Other values, and inputs smaller than about 1MB, are parsed on the calling thread.
+     */
+    JsonValue parseParallel(ByteBuffer buffer);
+
+    /**
+     * Parses the first value of the stream, reading it through a buffer of a fixed size, so memory is only taken by
+     * the result. The stream is not closed.
+     *
+     * @throws java.io.UncheckedIOException if the stream fails
+     */
+    JsonValue parseStream(InputStream in);
+
+    /**
+     * Same as {@link #parseStream(InputStream)}, but reads from a blocking channel.
+     */
+    JsonValue parseChannel(ReadableByteChannel channel);
+
+    /**
+     * Parses the first value of the file by mapping it into memory, without copying it onto the heap. Files larger
+     * than 2GB are mapped and parsed window by window.
+     *
+     * @throws java.io.UncheckedIOException if the file can't be read
+     */
+    JsonValue parseFile(Path path);
+
+    /**
+     * Parses json lines, or any values separated by whitespaces. The stream runs in parallel if it is asked to, the
+     * buffer is split between top-level values then, which are found by skipping over brackets and quotes.
+     */
+    Stream<JsonValue> parseLines(ByteBuffer buffer);
+
+    /**
+     * Parses json lines from a stream through a buffer of a fixed size. The stream is not closed.
+     *
+     * @throws java.io.UncheckedIOException from the terminal operation if the stream fails
+     */
+    Stream<JsonValue> parseLines(InputStream in);
+
+    /**
+     * Parses json lines from a mapped file like {@link #parseLines(ByteBuffer)}. Files larger than 2GB are mapped
+     * window by window and can't be split, close the result to release the file then.
+     *
+     * @throws java.io.UncheckedIOException if the file can't be read
+     */
+    Stream<JsonValue> parseLines(Path path);
+
+    /**
+     * Parses the buffer on demand. Objects and arrays only hold offsets into the buffer, their children are decoded
+     * when {@link io.ib67.sumi.api.object.JsonObject#getProperty(String)} or {@link java.util.List#get(int)} touches
+     * them, and skipped subtrees are only scanned for brackets. Therefore, syntax errors inside of a container are
+     * reported when it is touched.
+     * <p>
+     * The buffer must not be changed while the result is in use. Containers of one result share a reader, so the
+     * result must not be read from multiple threads until it is fully decoded, e.g. by {@code getAsMap}.
+     */
+    JsonValue parseLazy(ByteBuffer buffer);
+
+    /**
+     * Parses the buffer into a {@link JsonTape}, which keeps the document in two flat arrays instead of an object per
+     * value. Use it for large documents which stay in memory for long.
+     */
+    JsonTape parseTape(ByteBuffer buffer);
+
+    /**
+     * Selects values from the buffer without building the rest of the tree.
+     *
+     * @param pointer a pointer for {@link JsonQuery#compile(String)}, such as {@code /data/items/*}{@code /id}
+     * @return matched values in document order
+     */
+    List<JsonValue> query(ByteBuffer buffer, String pointer);
+
+    List<JsonValue> query(ByteBuffer buffer, JsonQuery query);
+
+    /**
+     * Parses the first value of the buffer, but only builds the members kept by the projection. Everything else is
+     * skipped without being decoded, see {@link Projection}.
+     *
+     * @return the projected tree, or null if the value is a container which is not projected
+     */
+    JsonValue parseProjected(ByteBuffer buffer, Projection projection);
+
+    /**
+     * Checks the remaining bytes of the buffer strictly under {@link JsonLimits#DEFAULT}, without decoding anything.
+     * The position of the buffer is left untouched.
+     */
+    default JsonValidation validate(ByteBuffer buffer) {
+        return validate(buffer, JsonLimits.DEFAULT);
+    }
+
+    /**
+     * Checks that the remaining bytes of the buffer are exactly one value of RFC 8259 within the limits. Unlike the
+     * parsers, which skip some malformed separators, it rejects anything the grammar does not allow.
+     *
+     * @return the offset of the first error if there is one
+     */
+    JsonValidation validate(ByteBuffer buffer, JsonLimits limits);
+
+    /**
+     * Creates a feeder for input which arrives in chunks.
+     */
+    JsonFeeder feeder();
+
+    /**
+     * Creates a cursor over the remaining bytes of the buffer. The position of the buffer is left untouched.
+     */
+    JsonCursor cursor(ByteBuffer buffer);
+
+    /**
+     * Creates a parser which is bound to new input by {@link ReusableJsonParser#reset(ByteBuffer)}, and keys of
+     * objects are canonicalized by the symbols of this parser.
+     */
+    ReusableJsonParser reusable();
+
+    /**
+     * Binds the first value of the input to the type through its {@link io.ib67.sumi.api.codec.JsonCodec}, without
+     * building a tree.
+     *
+     * @throws IllegalArgumentException if there is no codec for the type
+     */
     <T> T fromJson(String input, Class<T> typeOfT); //todo: typetoken
 
+    /**
+     * Binds the first value of the remaining bytes of the buffer. The position of the buffer is left untouched.
+     *
+     * @throws IllegalArgumentException if there is no codec for the type
+     */
+    <T> T fromJson(ByteBuffer buffer, Class<T> typeOfT);
+
+    /**
+     * Same as {@link #fromJson(ByteBuffer, Class)}, but for generic types such as {@code List<Foo>}, which are looked
+     * up by {@link io.ib67.sumi.api.codec.JsonCodecs#get(Type)}.
+     */
+    <T> T fromJson(ByteBuffer buffer, Type typeOfT);
+
     <T> T fromJsonTree(JsonValue tree, Class<T> typeOfT); //todo: typetoken
 
+    /**
+     * @return the tree of the object written by its {@link io.ib67.sumi.api.codec.JsonCodec}
+     */
     JsonValue toJson(Object object);
+
+    /**
+     * Writes the object by its {@link io.ib67.sumi.api.codec.JsonCodec} without building a tree.
+     */
+    void toJson(@Nullable Object object, JsonWriter writer);
 }
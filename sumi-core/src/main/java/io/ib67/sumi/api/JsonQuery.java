@@ -0,0 +1,214 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.api;
+
+import io.ib67.sumi.api.exception.JsonParseException;
+import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.impl.JsonReader;
+import io.ib67.sumi.impl.TokenType;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.ib67.sumi.api.JsonCursor.*;
+
+/**
+ * A compiled JSON Pointer (RFC 6901) whose segments may also be {@code *}, matching every member or element.
+ * <p>
+ * Selecting walks the tokens of a cursor and skips every subtree which can't match by counting brackets, so only
+ * the matched values are decoded. Keys are compared with their raw bytes unless they contain escapes.
+ * A query is immutable and can be shared between threads.
+ */
+@ApiStatus.AvailableSince("0.1.0")
+public final class JsonQuery {
+    private final String pointer;
+    // UTF-8 of every key, null for wildcards.
+    private final byte[][] names;
+    private final String[] keys;
+    // the array index of every segment, or -1 if it's not an index.
+    private final int[] indexes;
+
+    private JsonQuery(String pointer, String[] keys) {
+        this.pointer = pointer;
+        this.keys = keys;
+        names = new byte[keys.length][];
+        indexes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            names[i] = keys[i] == null ? null : keys[i].getBytes(StandardCharsets.UTF_8);
+            indexes[i] = keys[i] == null ? -1 : parseIndex(keys[i]);
+        }
+    }
+
+    /**
+     * @param pointer such as {@code /data/items/*}{@code /id}, or an empty string for the root value
+     * @throws IllegalArgumentException if it's not a valid pointer
+     */
+    public static JsonQuery compile(String pointer) {
+        if (pointer.isEmpty()) {
+            return new JsonQuery(pointer, new String[0]);
+        }
+        if (pointer.charAt(0) != '/') {
+            throw new IllegalArgumentException("Pointer " + pointer + " must begin with a slash");
+        }
+        final var segments = pointer.substring(1).split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            final var segment = segments[i];
+            if (segment.equals("*")) {
+                segments[i] = null;
+            } else if (segment.indexOf('~') >= 0) {
+                if (segment.matches(".*~([^01].*|$)")) {
+                    throw new IllegalArgumentException("Invalid escape in segment " + segment + " of pointer " + pointer);
+                }
+                segments[i] = segment.replace("~1", "/").replace("~0", "~");
+            }
+        }
+        return new JsonQuery(pointer, segments);
+    }
+
+    private static int parseIndex(String segment) {
+        if (segment.isEmpty() || segment.length() > 9 || (segment.charAt(0) == '0' && segment.length() > 1)) {
+            return -1;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (segment.charAt(i) < '0' || segment.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        return Integer.parseInt(segment);
+    }
+
+    /**
+     * Reads the next value of the cursor.
+     *
+     * @return matched values in document order
+     */
+    public List<JsonValue> select(JsonCursor cursor) {
+        final var event = cursor.nextEvent();
+        if (event == EOF) {
+            throw cursor.error("TokenStream is ended");
+        }
+        final var results = new ArrayList<JsonValue>();
+        select(cursor, new JsonReader(cursor), event, 0, results);
+        return results;
+    }
+
+    private void select(JsonCursor cursor, JsonReader reader, int event, int depth, List<JsonValue> results) {
+        if (depth == names.length) {
+            results.add(reader.readValue(event));
+            return;
+        }
+        switch (event) {
+            case OBJECT_BEGIN -> selectMembers(cursor, reader, depth, results);
+            case ARRAY_BEGIN -> selectElements(cursor, reader, depth, results);
+            // scalars have nothing to match.
+            default -> {
+            }
+        }
+    }
+
+    private void selectMembers(JsonCursor cursor, JsonReader reader, int depth, List<JsonValue> results) {
+        while (true) {
+            final var event = cursor.nextEvent();
+            switch (event) {
+                case LITERAL_TEXT -> {
+                    final var matched = matchesKey(cursor, depth);
+                    final var subEvent = cursor.nextEvent();
+                    if (subEvent != SEMICOLON) {
+                        throw cursor.error("Except SEMICOLON but encounter " + TokenType.values()[subEvent]);
+                    }
+                    visit(cursor, reader, cursor.nextEvent(), matched, depth, results);
+                }
+                case OBJECT_END -> {
+                    return;
+                }
+                case COMMA -> {
+                }
+                case EOF -> throw cursor.error("Unclosed JSON Object");
+                default -> throw cursor.error("Unexcepted token in object: " + TokenType.values()[event]);
+            }
+        }
+    }
+
+    private void selectElements(JsonCursor cursor, JsonReader reader, int depth, List<JsonValue> results) {
+        var index = 0;
+        while (true) {
+            final var event = cursor.nextEvent();
+            switch (event) {
+                case ARRAY_END -> {
+                    return;
+                }
+                case COMMA -> {
+                }
+                case EOF -> throw cursor.error("Unclosed JSON Array.");
+                default -> visit(cursor, reader, event, names[depth] == null || indexes[depth] == index++, depth, results);
+            }
+        }
+    }
+
+    /**
+     * Selects from a member or an element whose first token is {@code event}, or skips it if it doesn't match.
+     */
+    private void visit(JsonCursor cursor, JsonReader reader, int event, boolean matched, int depth, List<JsonValue> results) {
+        switch (event) {
+            case OBJECT_END, ARRAY_END, COMMA, SEMICOLON, EOF ->
+                    throw cursor.error("Impossible token is encountered: " + TokenType.values()[event]);
+            default -> {
+            }
+        }
+        if (matched) {
+            select(cursor, reader, event, depth + 1, results);
+        } else {
+            cursor.skipChildren();
+        }
+    }
+
+    private boolean matchesKey(JsonCursor cursor, int depth) {
+        final var name = names[depth];
+        if (name == null) {
+            return true;
+        }
+        if (cursor.hasEscapes()) {
+            return cursor.currentString().equals(keys[depth]);
+        }
+        final var start = cursor.tokenStart();
+        if (cursor.tokenEnd() - start != name.length) {
+            return false;
+        }
+        final var source = cursor.source();
+        for (int i = 0; i < name.length; i++) {
+            if (source.get(start + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return pointer;
+    }
+}
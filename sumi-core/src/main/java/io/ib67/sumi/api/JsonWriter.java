@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.api;
+
+import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.impl.SumiJsonWriter;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes UTF-8 encoded json, either from {@link JsonValue}s or from events like {@link #beginObject()} and
+ * {@link #name(String)}. Commas and colons are put by the writer, but it doesn't check the order of events.
+ * <p>
+ * Output is collected in a byte array, which is handed to the destination when it is full or on {@link #flush()}.
+ * {@link java.io.IOException}s from the destination are rethrown as {@link java.io.UncheckedIOException}s.
+ */
+@ApiStatus.AvailableSince("0.1.0")
+public interface JsonWriter extends Closeable, Flushable {
+    /**
+     * @return a writer into a growable byte array, see {@link #toByteArray()} and {@link #reset()}
+     */
+    static JsonWriter toBytes() {
+        return new SumiJsonWriter();
+    }
+
+    /**
+     * @return a writer which puts into the buffer from its position, a {@link java.nio.BufferOverflowException} is
+     * thrown on flush if there is not enough space.
+     */
+    static JsonWriter to(ByteBuffer buffer) {
+        return SumiJsonWriter.to(buffer);
+    }
+
+    /**
+     * @return a writer to the stream, which is closed with the writer
+     */
+    static JsonWriter to(OutputStream out) {
+        return SumiJsonWriter.to(out);
+    }
+
+    /**
+     * @return a writer to the channel, which is closed with the writer
+     */
+    static JsonWriter to(WritableByteChannel channel) {
+        return SumiJsonWriter.to(channel);
+    }
+
+    JsonWriter beginObject();
+
+    JsonWriter endObject();
+
+    JsonWriter beginArray();
+
+    JsonWriter endArray();
+
+    /**
+     * Writes the key of the next member.
+     */
+    JsonWriter name(String name);
+
+    /**
+     * Writes a text, or null if {@code value} is null.
+     */
+    JsonWriter value(String value);
+
+    JsonWriter value(long value);
+
+    /**
+     * Writes the number in the format of {@link Double#toString(double)}.
+     *
+     * @throws IllegalArgumentException if the value is NaN or infinite
+     */
+    JsonWriter value(double value);
+
+    JsonWriter value(boolean value);
+
+    JsonWriter value(BigDecimal value);
+
+    JsonWriter nullValue();
+
+    /**
+     * Writes the value and its children.
+     */
+    JsonWriter value(JsonValue value);
+
+    @Override
+    void flush();
+
+    /**
+     * Flushes and closes the destination.
+     */
+    @Override
+    void close();
+
+    /**
+     * @return bytes written so far
+     * @throws UnsupportedOperationException if it is not created by {@link #toBytes()}
+     */
+    byte[] toByteArray();
+
+    /**
+     * Discards all output and keeps the array for reuse.
+     *
+     * @throws UnsupportedOperationException if it is not created by {@link #toBytes()}
+     */
+    void reset();
+}
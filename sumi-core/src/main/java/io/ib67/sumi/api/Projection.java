@@ -0,0 +1,270 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.api;
+
+import io.ib67.sumi.api.exception.JsonParseException;
+import io.ib67.sumi.api.object.JsonObject;
+import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.api.object.primitive.JsonArray;
+import io.ib67.sumi.impl.JsonReader;
+import io.ib67.sumi.impl.TokenType;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.ib67.sumi.api.JsonCursor.*;
+
+/**
+ * A set of paths which are kept when a value is read, such as {@code Projection.of("id", "user.name", "tags[*]")}.
+ * A path is made of keys separated by dots, and {@code [*]} for every element of an array. The value at the end of a
+ * path is kept whole, so {@code tags[*]} keeps the same as {@code tags}.
+ * <p>
+ * Reading builds an ordinary tree of the kept members only. Every other member is skipped by counting brackets, its
+ * key is compared with its raw bytes and never decoded. Scalars are kept where a container is projected, such as a
+ * null {@code user}, containers of the other kind are dropped. A projection is immutable and can be shared between
+ * threads.
+ */
+@ApiStatus.AvailableSince("0.1.0")
+public final class Projection {
+    private final String[] paths;
+    private final Node root;
+
+    private Projection(String[] paths, Node root) {
+        this.paths = paths;
+        this.root = root;
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no path, or a path is empty or has an empty key
+     */
+    public static Projection of(String... paths) {
+        if (paths.length == 0) {
+            throw new IllegalArgumentException("Except at least one path");
+        }
+        final var root = new Node();
+        for (final var path : paths) {
+            var node = root;
+            var i = 0;
+            while (i < path.length()) {
+                if (path.startsWith("[*]", i)) {
+                    node = node.elements();
+                    i += 3;
+                    continue;
+                }
+                if (i > 0) {
+                    if (path.charAt(i) != '.') {
+                        throw new IllegalArgumentException("Except a dot or [*] at " + i + " of path " + path);
+                    }
+                    i++;
+                }
+                var end = i;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                if (end == i) {
+                    throw new IllegalArgumentException("Empty key at " + i + " of path " + path);
+                }
+                node = node.member(path.substring(i, end));
+                i = end;
+            }
+            if (node == root) {
+                throw new IllegalArgumentException("Path must not be empty");
+            }
+            node.whole = true;
+        }
+        root.freeze();
+        return new Projection(paths.clone(), root);
+    }
+
+    /**
+     * Reads the next value of the cursor.
+     *
+     * @return the value with the projected members only, or null if it is a container which is not projected
+     */
+    public JsonValue read(JsonCursor cursor) {
+        final var event = cursor.nextEvent();
+        if (event == EOF) {
+            throw cursor.error("TokenStream is ended");
+        }
+        return read(cursor, new JsonReader(cursor), event, root);
+    }
+
+    /**
+     * @param node the projection of the value, or null to skip it
+     * @return the projected value, or null if it's dropped
+     */
+    private static JsonValue read(JsonCursor cursor, JsonReader reader, int event, Node node) {
+        switch (event) {
+            case OBJECT_END, ARRAY_END, COMMA, SEMICOLON, EOF ->
+                    throw cursor.error("Impossible token is encountered: " + TokenType.values()[event]);
+            default -> {
+            }
+        }
+        if (node != null && node.whole) {
+            return reader.readValue(event);
+        }
+        if (node != null) {
+            switch (event) {
+                case OBJECT_BEGIN -> {
+                    if (node.keys.length != 0) {
+                        return readMembers(cursor, reader, node);
+                    }
+                }
+                case ARRAY_BEGIN -> {
+                    if (node.elements != null) {
+                        return readElements(cursor, reader, node.elements);
+                    }
+                }
+                default -> {
+                    return reader.readValue(event);
+                }
+            }
+        }
+        cursor.skipChildren();
+        return null;
+    }
+
+    private static JsonObject readMembers(JsonCursor cursor, JsonReader reader, Node node) {
+        final var obj = new JsonObject(node.keys.length);
+        while (true) {
+            final var event = cursor.nextEvent();
+            switch (event) {
+                case LITERAL_TEXT -> {
+                    final var index = node.indexOf(cursor);
+                    final var subEvent = cursor.nextEvent();
+                    if (subEvent != SEMICOLON) {
+                        throw cursor.error("Except SEMICOLON but encounter " + TokenType.values()[subEvent]);
+                    }
+                    final var value = read(cursor, reader, cursor.nextEvent(), index < 0 ? null : node.children[index]);
+                    if (value != null) {
+                        obj.addProperty(node.keys[index], value);
+                    }
+                }
+                case OBJECT_END -> {
+                    return obj;
+                }
+                case COMMA -> {
+                }
+                case EOF -> throw cursor.error("Unclosed JSON Object");
+                default -> throw cursor.error("Unexcepted token in object: " + TokenType.values()[event]);
+            }
+        }
+    }
+
+    private static JsonArray readElements(JsonCursor cursor, JsonReader reader, Node node) {
+        final var arr = new JsonArray();
+        while (true) {
+            final var event = cursor.nextEvent();
+            switch (event) {
+                case ARRAY_END -> {
+                    return arr;
+                }
+                case COMMA -> {
+                }
+                case EOF -> throw cursor.error("Unclosed JSON Array.");
+                default -> {
+                    final var value = read(cursor, reader, event, node);
+                    if (value != null) {
+                        arr.add(value);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.join(", ", paths);
+    }
+
+    private static final class Node {
+        private Map<String, Node> members = new LinkedHashMap<>();
+        private Node elements;
+        private boolean whole;
+        private String[] keys;
+        // UTF-8 of every key.
+        private byte[][] names;
+        private Node[] children;
+
+        private Node member(String key) {
+            return members.computeIfAbsent(key, k -> new Node());
+        }
+
+        private Node elements() {
+            if (elements == null) {
+                elements = new Node();
+            }
+            return elements;
+        }
+
+        private void freeze() {
+            keys = members.keySet().toArray(new String[0]);
+            children = members.values().toArray(new Node[0]);
+            names = new byte[keys.length][];
+            for (int i = 0; i < keys.length; i++) {
+                names[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+                children[i].freeze();
+            }
+            members = null;
+            if (elements != null) {
+                elements.freeze();
+            }
+        }
+
+        /**
+         * @return index of the current key of the cursor, or -1 if it's not projected
+         */
+        private int indexOf(JsonCursor cursor) {
+            if (cursor.hasEscapes()) {
+                final var key = cursor.currentString();
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i].equals(key)) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            final var start = cursor.tokenStart();
+            final var length = cursor.tokenEnd() - start;
+            final var source = cursor.source();
+            next:
+            for (int i = 0; i < names.length; i++) {
+                final var name = names[i];
+                if (name.length != length) {
+                    continue;
+                }
+                for (int j = 0; j < length; j++) {
+                    if (source.get(start + j) != name[j]) {
+                        continue next;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+}
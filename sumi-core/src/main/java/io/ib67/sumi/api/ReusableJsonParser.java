@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.api;
+
+import io.ib67.sumi.api.object.JsonValue;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A parser bound to one input at a time, which keeps its scratch buffers between inputs, so parsing a small input
+ * only allocates the result. It must not be used by multiple threads at once.
+ * <p>
+ * The {@link JsonParser}s borrow one from a pool for every {@link JsonParser#parseBuffer(ByteBuffer)} and
+ * {@code fromJson} already. Hold one explicitly, e.g. per connection, to skip the pool.
+ */
+@ApiStatus.AvailableSince("0.1.0")
+public interface ReusableJsonParser {
+    /**
+     * Binds the parser to the remaining bytes of the buffer, dropping the former input and any state of a failed
+     * parse. The position of the buffer is left untouched.
+     */
+    ReusableJsonParser reset(ByteBuffer input);
+
+    /**
+     * Parses the next value of the input.
+     */
+    JsonValue parse();
+
+    /**
+     * Binds the next value of the input through its {@link io.ib67.sumi.api.codec.JsonCodec}.
+     *
+     * @throws IllegalArgumentException if there is no codec for the type
+     */
+    <T> T fromJson(Class<T> typeOfT);
+
+    /**
+     * @return the cursor over the input, which is bound to the new input by {@link #reset(ByteBuffer)} as well
+     */
+    JsonCursor cursor();
+}
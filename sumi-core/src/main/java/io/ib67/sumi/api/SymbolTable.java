@@ -0,0 +1,167 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.api;
+
+import io.ib67.sumi.api.exception.JsonParseException;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of canonical strings for object keys, looked up by their UTF-8 bytes so a hit allocates nothing.
+ * <p>
+ * Entries live in buckets of two slots and a miss evicts the older slot, so the table never grows beyond its
+ * capacity. It is safe to share a table between parsers on different threads: entries are immutable and published
+ * without locks, so a racing lookup may miss an entry but never sees a wrong one.
+ */
+@ApiStatus.AvailableSince("0.1.0")
+public final class SymbolTable {
+    /**
+     * Longer keys are rarely repeated, they are decoded without a lookup.
+     */
+    public static final int MAX_KEY_LENGTH = 64;
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final SymbolTable SHARED = new SymbolTable(DEFAULT_CAPACITY);
+
+    private final Entry[] entries;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private SymbolTable(int capacity) {
+        final var size = Math.max(2, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+        entries = new Entry[size];
+        // selects the first slot of a bucket.
+        mask = size - 2;
+    }
+
+    /**
+     * @param capacity max count of keys, rounded up to a power of two
+     */
+    public static SymbolTable create(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity " + capacity + " is out of range");
+        }
+        return new SymbolTable(capacity);
+    }
+
+    /**
+     * @return the table used by {@link JsonParser#DEFAULT}
+     */
+    public static SymbolTable shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return the canonical string of the UTF-8 bytes, which is only decoded when it's not in the table yet
+     */
+    public String intern(byte[] bytes, int offset, int length) {
+        return intern(bytes, offset, length, null, -1);
+    }
+
+    /**
+     * Same as {@link #intern(byte[], int, int)}, but a malformed key is reported at its position in the input.
+     *
+     * @param source the input which the key is read from
+     * @param at     absolute index of the first byte of the key in the source
+     */
+    public String intern(byte[] bytes, int offset, int length, @Nullable ByteBuffer source, int at) {
+        if (length > MAX_KEY_LENGTH) {
+            return decode(bytes, offset, length, source, at);
+        }
+        var hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = hash * 31 + bytes[i];
+        }
+        hash ^= hash >>> 16;
+        final var slot = hash & mask;
+        final var first = entries[slot];
+        if (first != null && first.matches(hash, bytes, offset, length)) {
+            hits.increment();
+            return first.value;
+        }
+        final var second = entries[slot + 1];
+        if (second != null && second.matches(hash, bytes, offset, length)) {
+            hits.increment();
+            return second.value;
+        }
+        misses.increment();
+        final var value = decode(bytes, offset, length, source, at);
+        entries[slot + 1] = first;
+        entries[slot] = new Entry(hash, Arrays.copyOfRange(bytes, offset, offset + length), value);
+        return value;
+    }
+
+    private static String decode(byte[] bytes, int offset, int length, @Nullable ByteBuffer source, int at) {
+        try {
+            return StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes, offset, length)).toString();
+        } catch (CharacterCodingException e) {
+            final var error = new JsonParseException("Malformed UTF-8 sequence in key", source, at);
+            error.initCause(e);
+            throw error;
+        }
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return ratio of lookups which returned a cached string, or 0 before the first lookup
+     */
+    public double hitRate() {
+        final var hit = hits.sum();
+        final var total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * Drops all entries and resets the metrics.
+     */
+    public void clear() {
+        Arrays.fill(entries, null);
+        hits.reset();
+        misses.reset();
+    }
+
+    private record Entry(int hash, byte[] bytes, String value) {
+        private boolean matches(int hash, byte[] bytes, int offset, int length) {
+            return this.hash == hash && Arrays.equals(this.bytes, 0, this.bytes.length, bytes, offset, offset + length);
+        }
+    }
+}
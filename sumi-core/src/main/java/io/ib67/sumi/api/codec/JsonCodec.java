@@ -0,0 +1,51 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.api.codec;
+
+import io.ib67.sumi.api.JsonCursor;
+import io.ib67.sumi.api.JsonWriter;
+import io.ib67.sumi.api.exception.JsonParseException;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Binds a type to the token stream directly, without building {@link io.ib67.sumi.api.object.JsonValue}s.
+ * Codecs are stateless and shared, look them up by {@link JsonCodecs#get(Class)}.
+ */
+@ApiStatus.AvailableSince("0.1.0")
+public interface JsonCodec<T> {
+    /**
+     * Reads a value whose first token is the current token of the cursor, and leaves the cursor on its last token.
+     *
+     * @return the value, or null for a json null if the type allows it
+     */
+    @Nullable
+    T read(JsonCursor cursor) throws JsonParseException;
+
+    /**
+     * Writes the value, or a json null if it's null.
+     */
+    void write(JsonWriter writer, @Nullable T value);
+}
@@ -0,0 +1,658 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.api.codec;
+
+import io.ib67.sumi.api.JsonCursor;
+import io.ib67.sumi.api.JsonWriter;
+import io.ib67.sumi.api.exception.JsonParseException;
+import io.ib67.sumi.api.object.JsonObject;
+import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.api.object.primitive.JsonArray;
+import io.ib67.sumi.impl.JsonReader;
+import io.ib67.sumi.impl.RuntimeCodecs;
+import io.ib67.sumi.impl.TokenType;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static io.ib67.sumi.api.JsonCursor.*;
+
+/**
+ * The registry of {@link JsonCodec}s, and helpers for the codecs generated from {@code @SumiTarget} types.
+ * <p>
+ * A generated codec is named after its type with {@link #GENERATED_SUFFIX}, e.g. {@code Outer_Inner_SumiCodec} for
+ * {@code Outer.Inner}, and registers itself when it's initialized. It's found by its name on the first lookup, so no
+ * reflective access to the package of the type is needed. Codecs of other types are generated at runtime as
+ * hidden classes, which needs the package of the type to be open to {@code sumi.core}.
+ */
+@ApiStatus.AvailableSince("0.1.0")
+public final class JsonCodecs {
+    public static final String GENERATED_SUFFIX = "_SumiCodec";
+    private static final Map<Class<?>, JsonCodec<?>> REGISTERED = new ConcurrentHashMap<>();
+    private static final Map<Type, JsonCodec<?>> PARAMETERIZED = new ConcurrentHashMap<>();
+    private static final ClassValue<JsonCodec<?>> CODECS = new ClassValue<>() {
+        @Override
+        protected JsonCodec<?> computeValue(Class<?> type) {
+            return find(type);
+        }
+    };
+
+    static {
+        final var string = new Scalar<>(JsonCodecs::readString, JsonWriter::value);
+        final var integer = new Scalar<>(JsonCursor::currentInt, (JsonWriter w, Integer v) -> w.value(v));
+        final var longs = new Scalar<>(JsonCursor::currentLong, (JsonWriter w, Long v) -> w.value(v));
+        final var doubles = new Scalar<>(JsonCursor::currentDouble, (JsonWriter w, Double v) -> w.value(v));
+        final var floats = new Scalar<>(c -> (float) c.currentDouble(), JsonCodecs::writeFloat);
+        final var shorts = new Scalar<>(JsonCodecs::readShort, (JsonWriter w, Short v) -> w.value(v));
+        final var bytes = new Scalar<>(JsonCodecs::readByte, (JsonWriter w, Byte v) -> w.value(v));
+        final var booleans = new Scalar<>(JsonCodecs::readBoolean, (JsonWriter w, Boolean v) -> w.value(v));
+        final var chars = new Scalar<>(JsonCodecs::readChar, (JsonWriter w, Character v) -> w.value(String.valueOf(v)));
+        REGISTERED.put(String.class, string);
+        REGISTERED.put(Integer.class, integer);
+        REGISTERED.put(int.class, integer);
+        REGISTERED.put(Long.class, longs);
+        REGISTERED.put(long.class, longs);
+        REGISTERED.put(Double.class, doubles);
+        REGISTERED.put(double.class, doubles);
+        REGISTERED.put(Float.class, floats);
+        REGISTERED.put(float.class, floats);
+        REGISTERED.put(Short.class, shorts);
+        REGISTERED.put(short.class, shorts);
+        REGISTERED.put(Byte.class, bytes);
+        REGISTERED.put(byte.class, bytes);
+        REGISTERED.put(Boolean.class, booleans);
+        REGISTERED.put(boolean.class, booleans);
+        REGISTERED.put(Character.class, chars);
+        REGISTERED.put(char.class, chars);
+        REGISTERED.put(BigDecimal.class, new Scalar<>(JsonCursor::currentBigDecimal, JsonWriter::value));
+        REGISTERED.put(BigInteger.class, new Scalar<>(JsonCodecs::readBigInteger, (JsonWriter w, BigInteger v) -> w.value(new BigDecimal(v))));
+        REGISTERED.put(JsonValue.class, new Tree<>(JsonValue.class));
+        REGISTERED.put(JsonObject.class, new Tree<>(JsonObject.class));
+        REGISTERED.put(JsonArray.class, new Tree<>(JsonArray.class));
+        REGISTERED.put(Object.class, new Any());
+    }
+
+    private JsonCodecs() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no codec for the type, and it can't be generated
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> JsonCodec<T> get(Class<T> type) {
+        return (JsonCodec<T>) CODECS.get(type);
+    }
+
+    /**
+     * Looks up the codec of a generic type, such as the one of a field. Collections, and maps whose keys are strings,
+     * are bound to {@link ArrayList}, {@link LinkedHashSet} and {@link LinkedHashMap} unless their declared types
+     * are sorted. Codecs of their elements are looked up on first use.
+     *
+     * @throws IllegalArgumentException if there is no codec for the type, and it can't be generated
+     */
+    public static JsonCodec<?> get(Type type) {
+        if (type instanceof Class<?> c) {
+            return get(c);
+        }
+        var codec = PARAMETERIZED.get(type);
+        if (codec == null) {
+            codec = create(type);
+            final var previous = PARAMETERIZED.putIfAbsent(type, codec);
+            if (previous != null) {
+                codec = previous;
+            }
+        }
+        return codec;
+    }
+
+    private static JsonCodec<?> create(Type type) {
+        if (type instanceof GenericArrayType array) {
+            return new ArrayCodec<>(erase(array.getGenericComponentType()), codecOf(array.getGenericComponentType()));
+        }
+        if (type instanceof ParameterizedType parameterized && parameterized.getRawType() instanceof Class<?> raw) {
+            final var arguments = parameterized.getActualTypeArguments();
+            final var container = container(raw, arguments[arguments.length - 1]);
+            if (container != null && (arguments.length == 1 || erase(arguments[0]) == String.class || arguments[0] == Object.class)) {
+                return container;
+            }
+        }
+        throw new IllegalArgumentException("Type " + type.getTypeName() + " is not supported");
+    }
+
+    /**
+     * @return the codec of the collection or the map, or null if it isn't one
+     */
+    private static JsonCodec<?> container(Class<?> raw, Type element) {
+        if (Collection.class.isAssignableFrom(raw)) {
+            return new CollectionCodec<>(raw, codecOf(element));
+        }
+        if (Map.class.isAssignableFrom(raw)) {
+            return new MapCodec<>(raw, codecOf(element));
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JsonCodec<Object> codecOf(Type type) {
+        return (JsonCodec<Object>) (type instanceof Class<?> c ? lazy(c) : get(type));
+    }
+
+    private static Class<?> erase(Type type) {
+        if (type instanceof Class<?> c) {
+            return c;
+        }
+        if (type instanceof ParameterizedType parameterized) {
+            return erase(parameterized.getRawType());
+        }
+        if (type instanceof GenericArrayType array) {
+            return erase(array.getGenericComponentType()).arrayType();
+        }
+        throw new IllegalArgumentException("Type " + type.getTypeName() + " is not supported");
+    }
+
+    /**
+     * @return a codec which looks up the codec of the type on its first use, for codecs of types which refer to
+     * themselves
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> JsonCodec<T> lazy(Class<T> type) {
+        final var codec = REGISTERED.get(type);
+        return codec != null ? (JsonCodec<T>) codec : new Lazy<>(type);
+    }
+
+    public static <E> JsonCodec<List<E>> listOf(JsonCodec<E> element) {
+        return new CollectionCodec<>(List.class, element);
+    }
+
+    public static <E> JsonCodec<Set<E>> setOf(JsonCodec<E> element) {
+        return new CollectionCodec<>(Set.class, element);
+    }
+
+    public static <V> JsonCodec<Map<String, V>> mapOf(JsonCodec<V> value) {
+        return new MapCodec<>(Map.class, value);
+    }
+
+    /**
+     * Registers or replaces the codec of a type.
+     */
+    public static <T> void register(Class<T> type, JsonCodec<T> codec) {
+        REGISTERED.put(type, codec);
+        CODECS.remove(type);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static JsonCodec<?> find(Class<?> type) {
+        var codec = REGISTERED.get(type);
+        if (codec != null) {
+            return codec;
+        }
+        if (type.isEnum()) {
+            return new EnumCodec(type);
+        }
+        if (type.isArray()) {
+            return new ArrayCodec<>(type.getComponentType(), lazy(type.getComponentType()));
+        }
+        final var name = type.getName();
+        final var simpleName = name.substring(name.lastIndexOf('.') + 1).replace('$', '_');
+        try {
+            // the codec registers itself when initialized.
+            Class.forName(name.substring(0, name.length() - simpleName.length()) + simpleName + GENERATED_SUFFIX, true, type.getClassLoader());
+        } catch (ClassNotFoundException ignored) {
+        }
+        codec = REGISTERED.get(type);
+        if (codec == null) {
+            codec = container(type, Object.class);
+        }
+        return codec != null ? codec : RuntimeCodecs.generate(type);
+    }
+
+    /**
+     * Checks that the current token begins an object.
+     *
+     * @return false if it's null instead
+     */
+    public static boolean beginObject(JsonCursor cursor) {
+        return switch (cursor.currentEvent()) {
+            case OBJECT_BEGIN -> true;
+            case NULL -> false;
+            default -> throw unexcepted(cursor, "OBJECT_BEGIN", cursor.currentEvent());
+        };
+    }
+
+    /**
+     * Advances to the value of the next member.
+     *
+     * @return the key of the member, or null at the end of the object
+     */
+    @Nullable
+    public static String nextKey(JsonCursor cursor) {
+        while (true) {
+            final var event = cursor.nextEvent();
+            switch (event) {
+                case LITERAL_TEXT -> {
+                    final var key = cursor.currentKey();
+                    final var subEvent = cursor.nextEvent();
+                    if (subEvent != SEMICOLON) {
+                        throw unexcepted(cursor, "SEMICOLON", subEvent);
+                    }
+                    final var value = cursor.nextEvent();
+                    switch (value) {
+                        case OBJECT_END, ARRAY_END, COMMA, SEMICOLON, EOF ->
+                                throw cursor.error("Impossible token is encountered: " + TokenType.values()[value]);
+                        default -> {
+                            return key;
+                        }
+                    }
+                }
+                case OBJECT_END -> {
+                    return null;
+                }
+                case COMMA -> {
+                }
+                case EOF -> throw cursor.error("Unclosed JSON Object");
+                default -> throw cursor.error("Unexcepted token in object: " + TokenType.values()[event]);
+            }
+        }
+    }
+
+    /**
+     * Advances to the next element of the array.
+     *
+     * @return false at the end of the array
+     */
+    public static boolean nextElement(JsonCursor cursor) {
+        while (true) {
+            final var event = cursor.nextEvent();
+            switch (event) {
+                case ARRAY_END -> {
+                    return false;
+                }
+                case COMMA -> {
+                }
+                case OBJECT_END, SEMICOLON -> throw cursor.error("Unexcepted token in array: " + TokenType.values()[event]);
+                case EOF -> throw cursor.error("Unclosed JSON Array.");
+                default -> {
+                    return true;
+                }
+            }
+        }
+    }
+
+    @Nullable
+    public static String readString(JsonCursor cursor) {
+        return switch (cursor.currentEvent()) {
+            case LITERAL_TEXT -> cursor.currentString();
+            case NULL -> null;
+            default -> throw unexcepted(cursor, "LITERAL_TEXT", cursor.currentEvent());
+        };
+    }
+
+    public static boolean readBoolean(JsonCursor cursor) {
+        return switch (cursor.currentEvent()) {
+            case TRUE -> true;
+            case FALSE -> false;
+            default -> throw unexcepted(cursor, "TRUE or FALSE", cursor.currentEvent());
+        };
+    }
+
+    public static char readChar(JsonCursor cursor) {
+        final var s = readString(cursor);
+        if (s == null || s.length() != 1) {
+            throw cursor.error("Except a text of one char but encounter " + (s == null ? "NULL" : '"' + s + '"'));
+        }
+        return s.charAt(0);
+    }
+
+    public static short readShort(JsonCursor cursor) {
+        final var i = cursor.currentInt();
+        if (i != (short) i) {
+            throw cursor.error("Number " + i + " is out of short range");
+        }
+        return (short) i;
+    }
+
+    public static byte readByte(JsonCursor cursor) {
+        final var i = cursor.currentInt();
+        if (i != (byte) i) {
+            throw cursor.error("Number " + i + " is out of byte range");
+        }
+        return (byte) i;
+    }
+
+    public static BigInteger readBigInteger(JsonCursor cursor) {
+        final var d = cursor.currentBigDecimal();
+        try {
+            return d.toBigIntegerExact();
+        } catch (ArithmeticException e) {
+            throw cursor.error("Number " + d + " is not an integer");
+        }
+    }
+
+    /**
+     * Writes the shortest decimal of the float, instead of the one of its widened double.
+     */
+    public static void writeFloat(JsonWriter writer, float value) {
+        writer.value(Double.parseDouble(Float.toString(value)));
+    }
+
+    private static JsonParseException unexcepted(JsonCursor cursor, String excepted, int event) {
+        return cursor.error("Except " + excepted + " but encounter " + TokenType.values()[event]);
+    }
+
+    private record Scalar<T>(Function<JsonCursor, T> reader, BiConsumer<JsonWriter, T> writer) implements JsonCodec<T> {
+        @Override
+        public T read(JsonCursor cursor) {
+            return cursor.currentEvent() == NULL ? null : reader.apply(cursor);
+        }
+
+        @Override
+        public void write(JsonWriter writer, T value) {
+            if (value == null) {
+                writer.nullValue();
+            } else {
+                this.writer.accept(writer, value);
+            }
+        }
+    }
+
+    private record Tree<T extends JsonValue>(Class<T> type) implements JsonCodec<T> {
+        @Override
+        public T read(JsonCursor cursor) {
+            final var value = new JsonReader(cursor).readValue(cursor.currentEvent());
+            if (!type.isInstance(value)) {
+                if (cursor.currentEvent() == NULL) {
+                    return null;
+                }
+                throw cursor.error("Except " + type.getSimpleName() + " but encounter " + value.getClass().getSimpleName());
+            }
+            return type.cast(value);
+        }
+
+        @Override
+        public void write(JsonWriter writer, T value) {
+            writer.value(value);
+        }
+    }
+
+    private static final class EnumCodec<E extends Enum<E>> implements JsonCodec<E> {
+        private final Class<E> type;
+        private final Map<String, E> constants = new HashMap<>();
+
+        private EnumCodec(Class<E> type) {
+            this.type = type;
+            for (final var constant : type.getEnumConstants()) {
+                constants.put(constant.name(), constant);
+            }
+        }
+
+        @Override
+        public E read(JsonCursor cursor) {
+            final var name = readString(cursor);
+            if (name == null) {
+                return null;
+            }
+            final var constant = constants.get(name);
+            if (constant == null) {
+                throw cursor.error("Unknown constant " + name + " of " + type.getName());
+            }
+            return constant;
+        }
+
+        @Override
+        public void write(JsonWriter writer, E value) {
+            writer.value(value == null ? null : value.name());
+        }
+    }
+
+    /**
+     * The codec of {@link Object}, which reads trees and writes values by the codecs of their classes.
+     */
+    private static final class Any implements JsonCodec<Object> {
+        private final JsonCodec<JsonValue> tree = new Tree<>(JsonValue.class);
+
+        @Override
+        public Object read(JsonCursor cursor) {
+            return tree.read(cursor);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void write(JsonWriter writer, Object value) {
+            if (value == null) {
+                writer.nullValue();
+            } else if (value instanceof JsonValue json) {
+                writer.value(json);
+            } else {
+                get((Class<Object>) value.getClass()).write(writer, value);
+            }
+        }
+    }
+
+    private static final class Lazy<T> implements JsonCodec<T> {
+        private final Class<T> type;
+        private JsonCodec<T> codec;
+
+        private Lazy(Class<T> type) {
+            this.type = type;
+        }
+
+        private JsonCodec<T> codec() {
+            // races only look it up twice.
+            var codec = this.codec;
+            if (codec == null) {
+                this.codec = codec = get(type);
+            }
+            return codec;
+        }
+
+        @Override
+        public T read(JsonCursor cursor) {
+            return codec().read(cursor);
+        }
+
+        @Override
+        public void write(JsonWriter writer, T value) {
+            codec().write(writer, value);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final class CollectionCodec<C extends Collection<E>, E> implements JsonCodec<C> {
+        private final Class<?> type;
+        @Nullable
+        private final Supplier<Collection> factory;
+        private final JsonCodec<E> element;
+
+        private CollectionCodec(Class<?> type, JsonCodec<E> element) {
+            this.type = type;
+            this.element = element;
+            if (type.isAssignableFrom(ArrayList.class)) {
+                factory = ArrayList::new;
+            } else if (type.isAssignableFrom(LinkedHashSet.class)) {
+                factory = LinkedHashSet::new;
+            } else if (type.isAssignableFrom(TreeSet.class) || type == SortedSet.class) {
+                factory = TreeSet::new;
+            } else {
+                factory = null;
+            }
+        }
+
+        @Override
+        public C read(JsonCursor cursor) {
+            if (cursor.currentEvent() == NULL) {
+                return null;
+            }
+            if (cursor.currentEvent() != ARRAY_BEGIN) {
+                throw unexcepted(cursor, "ARRAY_BEGIN", cursor.currentEvent());
+            }
+            if (factory == null) {
+                throw new IllegalArgumentException("Can't create " + type.getName() + ", declare it as a List or a Set");
+            }
+            final var collection = factory.get();
+            while (nextElement(cursor)) {
+                collection.add(element.read(cursor));
+            }
+            return (C) collection;
+        }
+
+        @Override
+        public void write(JsonWriter writer, C value) {
+            if (value == null) {
+                writer.nullValue();
+                return;
+            }
+            writer.beginArray();
+            for (final var e : value) {
+                element.write(writer, e);
+            }
+            writer.endArray();
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final class MapCodec<M extends Map<String, V>, V> implements JsonCodec<M> {
+        private final Class<?> type;
+        @Nullable
+        private final Supplier<Map> factory;
+        private final JsonCodec<V> value;
+
+        private MapCodec(Class<?> type, JsonCodec<V> value) {
+            this.type = type;
+            this.value = value;
+            if (type.isAssignableFrom(LinkedHashMap.class)) {
+                factory = LinkedHashMap::new;
+            } else if (type.isAssignableFrom(TreeMap.class) || type == SortedMap.class) {
+                factory = TreeMap::new;
+            } else {
+                factory = null;
+            }
+        }
+
+        @Override
+        public M read(JsonCursor cursor) {
+            if (!beginObject(cursor)) {
+                return null;
+            }
+            if (factory == null) {
+                throw new IllegalArgumentException("Can't create " + type.getName() + ", declare it as a Map");
+            }
+            final var map = factory.get();
+            String key;
+            while ((key = nextKey(cursor)) != null) {
+                map.put(key, value.read(cursor));
+            }
+            return (M) map;
+        }
+
+        @Override
+        public void write(JsonWriter writer, M map) {
+            if (map == null) {
+                writer.nullValue();
+                return;
+            }
+            writer.beginObject();
+            for (final var entry : map.entrySet()) {
+                value.write(writer.name(String.valueOf(entry.getKey())), entry.getValue());
+            }
+            writer.endObject();
+        }
+    }
+
+    /**
+     * Arrays of primitives are boxed element by element, register a codec of them if it matters.
+     */
+    @SuppressWarnings("unchecked")
+    private static final class ArrayCodec<E> implements JsonCodec<Object> {
+        private final Class<?> component;
+        private final JsonCodec<E> element;
+
+        private ArrayCodec(Class<?> component, JsonCodec<E> element) {
+            this.component = component;
+            this.element = element;
+        }
+
+        @Override
+        public Object read(JsonCursor cursor) {
+            if (cursor.currentEvent() == NULL) {
+                return null;
+            }
+            if (cursor.currentEvent() != ARRAY_BEGIN) {
+                throw unexcepted(cursor, "ARRAY_BEGIN", cursor.currentEvent());
+            }
+            final var elements = new ArrayList<E>();
+            while (nextElement(cursor)) {
+                final var e = element.read(cursor);
+                if (e == null && component.isPrimitive()) {
+                    throw cursor.error("Except " + component.getName() + " but encounter NULL");
+                }
+                elements.add(e);
+            }
+            final var array = Array.newInstance(component, elements.size());
+            if (!component.isPrimitive()) {
+                return elements.toArray((Object[]) array);
+            }
+            for (int i = 0; i < elements.size(); i++) {
+                Array.set(array, i, elements.get(i));
+            }
+            return array;
+        }
+
+        @Override
+        public void write(JsonWriter writer, Object value) {
+            if (value == null) {
+                writer.nullValue();
+                return;
+            }
+            writer.beginArray();
+            final var length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                element.write(writer, (E) Array.get(value, i));
+            }
+            writer.endArray();
+        }
+    }
+}
@@ -24,24 +24,204 @@
 
 package io.ib67.sumi.api.exception;
 
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Thrown when the input is not valid json. Exceptions which know the input report where parsing fails by its byte
+ * offset, line, column and a snippet around it. Only the offset is recorded when it's thrown, the rest is found by
+ * scanning the input again when it's asked for, so the input must not be changed until then. Inputs which are read in
+ * parts only keep the part where parsing fails, the snippet is cut at its bounds then.
+ */
 public class JsonParseException extends RuntimeException {
+    private static final int SNIPPET_RADIUS = 24;
+    private final int offset;
+    // the input and the index where it begins, to locate the offset lazily.
+    @Nullable
+    private final transient ByteBuffer source;
+    private final int start;
+    // where the source begins in a longer input which is read in parts, see the constructor for them.
+    private final long base;
+    private final int baseLine;
+    private final int baseColumn;
+    private int line;
+    private int column;
+    private String snippet;
+
     public JsonParseException() {
-        super();
+        this(null, null, -1);
     }
 
     public JsonParseException(String message) {
+        this(message, null, -1);
+    }
+
+    /**
+     * @param offset index of the byte in the input where parsing fails
+     */
+    public JsonParseException(String message, int offset) {
+        this(message, null, offset);
+    }
+
+    /**
+     * @param source the input, whose position is where it begins
+     * @param offset absolute index of the byte in the source where parsing fails
+     */
+    public JsonParseException(String message, @Nullable ByteBuffer source, int offset) {
         super(message);
+        this.offset = offset;
+        this.source = offset < 0 ? null : source;
+        start = source == null ? 0 : Math.min(source.position(), offset);
+        base = start;
+        baseLine = 1;
+        baseColumn = 1;
+    }
+
+    /**
+     * Moves an exception which is thrown on a part of a longer input into the whole input. Exceptions without the
+     * part are copied as they are.
+     *
+     * @param inPart thrown with the part as its source
+     * @param base   offset of the beginning of the part in the whole input
+     * @param line   the line where the part begins
+     * @param column the column where the part begins
+     */
+    public JsonParseException(JsonParseException inPart, long base, int line, int column) {
+        super(inPart.baseMessage(), inPart.getCause());
+        offset = inPart.offset;
+        source = inPart.source;
+        start = inPart.start;
+        final var moved = source != null;
+        this.base = moved ? base : inPart.base;
+        baseLine = moved ? line : inPart.baseLine;
+        baseColumn = moved ? column : inPart.baseColumn;
+        setStackTrace(inPart.getStackTrace());
     }
 
     public JsonParseException(String message, Throwable cause) {
         super(message, cause);
+        offset = -1;
+        source = null;
+        start = 0;
+        base = 0;
+        baseLine = 1;
+        baseColumn = 1;
     }
 
     public JsonParseException(Throwable cause) {
         super(cause);
+        offset = -1;
+        source = null;
+        start = 0;
+        base = 0;
+        baseLine = 1;
+        baseColumn = 1;
     }
 
     protected JsonParseException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
         super(message, cause, enableSuppression, writableStackTrace);
+        offset = -1;
+        source = null;
+        start = 0;
+        base = 0;
+        baseLine = 1;
+        baseColumn = 1;
+    }
+
+    /**
+     * @return index of the byte in the input where parsing fails, or -1 if it's unknown. It's
+     * {@link Integer#MAX_VALUE} for larger offsets in inputs which are read in parts, see {@link #getLongOffset()}.
+     */
+    public int getOffset() {
+        return (int) Math.min(getLongOffset(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return index of the byte in the input where parsing fails, or -1 if it's unknown
+     */
+    @ApiStatus.AvailableSince("0.1.0")
+    public long getLongOffset() {
+        return offset < 0 ? offset : base + offset - start;
+    }
+
+    /**
+     * @return the line where parsing fails, counted from 1, or -1 if the input is unknown
+     */
+    public int getLine() {
+        locate();
+        return line;
+    }
+
+    /**
+     * @return the column where parsing fails in code points, counted from 1, or -1 if the input is unknown
+     */
+    public int getColumn() {
+        locate();
+        return column;
+    }
+
+    /**
+     * @return the input around the offset with line breaks replaced by spaces, or null if the input is unknown
+     */
+    @Nullable
+    public String getSnippet() {
+        locate();
+        return snippet;
+    }
+
+    @Override
+    public String getMessage() {
+        final var message = super.getMessage();
+        if (offset < 0) {
+            return message;
+        }
+        if (source == null) {
+            return message + " at " + getLongOffset();
+        }
+        locate();
+        return message + " at " + getLongOffset() + " (line " + line + ", column " + column + "): " + snippet;
+    }
+
+    private String baseMessage() {
+        return super.getMessage();
+    }
+
+    /**
+     * Counts lines and columns from the beginning of the input, only on the first call.
+     */
+    private void locate() {
+        if (line != 0) {
+            return;
+        }
+        if (source == null) {
+            line = column = -1;
+            return;
+        }
+        final var end = Math.min(offset, source.limit());
+        var lines = 1;
+        var lineStart = start;
+        for (var i = start; i < end; i++) {
+            if (source.get(i) == '\n') {
+                lines++;
+                lineStart = i + 1;
+            }
+        }
+        var columns = 1;
+        for (var i = lineStart; i < end; i++) {
+            // continuation bytes don't begin a code point.
+            if ((source.get(i) & 0xC0) != 0x80) {
+                columns++;
+            }
+        }
+        final var from = Math.max(lineStart, end - SNIPPET_RADIUS);
+        final var to = Math.min(source.limit(), end + SNIPPET_RADIUS);
+        final var bytes = new byte[to - from];
+        source.get(from, bytes);
+        snippet = new String(bytes, StandardCharsets.UTF_8).replace('\n', ' ').replace('\r', ' ').replace('\t', ' ');
+        column = lines == 1 ? baseColumn + columns - 1 : columns;
+        line = baseLine + lines - 1;
     }
 }
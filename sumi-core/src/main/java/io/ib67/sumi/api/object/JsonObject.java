@@ -24,13 +24,29 @@
 
 package io.ib67.sumi.api.object;
 
-import java.util.HashMap;
+import io.ib67.sumi.api.JsonWriter;
+import io.ib67.sumi.impl.CompactJsonMap;
+import io.ib67.sumi.impl.LazyJsonObject;
+
 import java.util.Map;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
-public final class JsonObject implements JsonValue, Function<String, JsonValue> {
-    private final Map<String, JsonValue> values = new HashMap<>();
+/**
+ * Members are kept in insertion order, so parsed objects are written in the order of the input.
+ */
+public sealed class JsonObject implements JsonValue, Function<String, JsonValue> permits LazyJsonObject {
+    protected final Map<String, JsonValue> values;
+
+    public JsonObject() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize count of members to make room for
+     */
+    public JsonObject(int expectedSize) {
+        values = new CompactJsonMap(expectedSize);
+    }
 
     public JsonObject addProperty(String key, JsonValue value) {
         values.put(key, value);
@@ -53,9 +69,7 @@ public final class JsonObject implements JsonValue, Function<String, JsonValue>
 
     @Override
     public String toJSON() {
-        return values.entrySet().stream()
-                .map(entry -> "\"" + entry.getKey() + "\":" + entry.getValue().toJSON())
-                .collect(Collectors.joining(",", "{", "}"));
+        return JsonWriter.toBytes().value(this).toString();
     }
 
     public Map<String, JsonValue> getAsMap() {
@@ -64,6 +78,6 @@ public final class JsonObject implements JsonValue, Function<String, JsonValue>
 
     @Override
     public JsonValue apply(String s) {
-        return values.get(s);
+        return getProperty(s);
     }
 }
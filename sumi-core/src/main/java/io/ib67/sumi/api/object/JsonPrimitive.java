@@ -28,10 +28,13 @@ import io.ib67.sumi.api.object.primitive.JsonBoolean;
 import io.ib67.sumi.api.object.primitive.JsonNull;
 import io.ib67.sumi.api.object.primitive.JsonNumber;
 import io.ib67.sumi.api.object.primitive.JsonString;
+import io.ib67.sumi.api.object.primitive.numbers.JsonBigDecimal;
 import io.ib67.sumi.api.object.primitive.numbers.JsonDouble;
 import io.ib67.sumi.api.object.primitive.numbers.JsonInt;
 import io.ib67.sumi.api.object.primitive.numbers.JsonLong;
 
+import java.math.BigDecimal;
+
 public sealed abstract class JsonPrimitive implements JsonValue permits JsonNumber, JsonNull, JsonBoolean, JsonString {
     public boolean isBoolean() {
         return this instanceof JsonBoolean;
@@ -75,6 +78,14 @@ public sealed abstract class JsonPrimitive implements JsonValue permits JsonNumb
         return ((JsonDouble) this).getValue();
     }
 
+    public boolean isBigDecimal() {
+        return this instanceof JsonBigDecimal;
+    }
+
+    public BigDecimal getAsBigDecimal() {
+        return ((JsonBigDecimal) this).getValue();
+    }
+
     public boolean isNull() {
         return this == JsonNull.NULL;
     }
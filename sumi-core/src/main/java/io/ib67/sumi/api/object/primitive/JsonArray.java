@@ -24,14 +24,90 @@
 
 package io.ib67.sumi.api.object.primitive;
 
+import io.ib67.sumi.api.JsonWriter;
 import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.impl.DeferredJsonArray;
 
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
 
-public final class JsonArray extends ArrayList<JsonValue> implements JsonValue {
+public sealed class JsonArray extends ArrayList<JsonValue> implements JsonValue permits DeferredJsonArray {
+    /**
+     * Arrays of numbers which are parsed from json keep them in a primitive array, they are copied at once then. The
+     * result is always a new array, use {@link #asDoubleBuffer()} to read the numbers without copying them.
+     *
+     * @throws UnsupportedOperationException if an element is not a number
+     */
+    public double[] toDoubleArray() {
+        final var result = new double[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = number(i).doubleValue();
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #toDoubleArray()}, but decimals are truncated like {@link Number#longValue()}. The result is
+     * always a new array, use {@link #asLongBuffer()} to read the numbers without copying them.
+     *
+     * @throws UnsupportedOperationException if an element is not a number
+     */
+    public long[] toLongArray() {
+        final var result = new long[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = number(i).longValue();
+        }
+        return result;
+    }
+
+    /**
+     * A read-only view of the numbers. It shares the primitive array which keeps the numbers of a parsed array when
+     * they are all decimals, otherwise it wraps a copy from {@link #toDoubleArray()}. The view doesn't follow later
+     * changes of this array.
+     *
+     * @throws UnsupportedOperationException if an element is not a number
+     */
+    public DoubleBuffer asDoubleBuffer() {
+        return DoubleBuffer.wrap(toDoubleArray()).asReadOnlyBuffer();
+    }
+
+    /**
+     * Same as {@link #asDoubleBuffer()}, for arrays whose numbers are kept as longs.
+     *
+     * @throws UnsupportedOperationException if an element is not a number
+     */
+    public LongBuffer asLongBuffer() {
+        return LongBuffer.wrap(toLongArray()).asReadOnlyBuffer();
+    }
+
+    /**
+     * Same as {@link #asDoubleBuffer()}, for arrays whose numbers are kept as ints.
+     *
+     * @throws UnsupportedOperationException if an element is not a number, or not an integer in int range
+     */
+    public IntBuffer asIntBuffer() {
+        final var result = new int[size()];
+        for (int i = 0; i < result.length; i++) {
+            final var n = number(i);
+            if (!(n instanceof Integer)) {
+                throw new UnsupportedOperationException("Element " + i + " is not an int");
+            }
+            result[i] = n.intValue();
+        }
+        return IntBuffer.wrap(result).asReadOnlyBuffer();
+    }
+
+    private Number number(int index) {
+        if (!(get(index) instanceof JsonNumber number)) {
+            throw new UnsupportedOperationException("Element " + index + " is not a number");
+        }
+        return number.getNumber();
+    }
+
     @Override
     public String toJSON() {
-        return stream().map(JsonValue::toJSON).collect(Collectors.joining(",", "[", "]"));
+        return JsonWriter.toBytes().value(this).toString();
     }
 }
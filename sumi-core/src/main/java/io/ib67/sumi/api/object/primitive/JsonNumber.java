@@ -25,12 +25,13 @@
 package io.ib67.sumi.api.object.primitive;
 
 import io.ib67.sumi.api.object.JsonPrimitive;
+import io.ib67.sumi.api.object.primitive.numbers.JsonBigDecimal;
 import io.ib67.sumi.api.object.primitive.numbers.JsonDouble;
 import io.ib67.sumi.api.object.primitive.numbers.JsonInt;
 import io.ib67.sumi.api.object.primitive.numbers.JsonLong;
 import org.jetbrains.annotations.ApiStatus;
 
 @ApiStatus.AvailableSince("0.1.0")
-public sealed abstract class JsonNumber extends JsonPrimitive permits JsonDouble, JsonInt, JsonLong {
+public sealed abstract class JsonNumber extends JsonPrimitive permits JsonDouble, JsonInt, JsonLong, JsonBigDecimal {
     public abstract Number getNumber();
 }
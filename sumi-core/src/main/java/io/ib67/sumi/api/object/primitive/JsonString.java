@@ -24,6 +24,7 @@
 
 package io.ib67.sumi.api.object.primitive;
 
+import io.ib67.sumi.api.JsonWriter;
 import io.ib67.sumi.api.object.JsonPrimitive;
 
 public final class JsonString extends JsonPrimitive {
@@ -39,6 +40,6 @@ public final class JsonString extends JsonPrimitive {
 
     @Override
     public String toJSON() {
-        return "\"" + value.replaceAll("\"", "\\\\\"") + "\"";
+        return JsonWriter.toBytes().value(value).toString();
     }
 }
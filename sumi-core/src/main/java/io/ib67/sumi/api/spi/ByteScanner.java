@@ -0,0 +1,53 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.api.spi;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Scans many bytes at once for the tokenizer. The core module has no implementation, the optional {@code sumi.vector}
+ * module provides one with {@code jdk.incubator.vector}, so the core module doesn't depend on an incubator module.
+ * <p>
+ * Every method has a variant for heap arrays and one for direct buffers, which takes absolute indexes. They may leave
+ * a tail shorter than their width to the caller.
+ */
+@ApiStatus.Internal
+public interface ByteScanner {
+    /**
+     * @return index of the first double quote or backslash, or the first index which is not scanned yet
+     */
+    int findQuoteOrEscape(byte[] array, int from, int to);
+
+    int findQuoteOrEscape(ByteBuffer buffer, int from, int to);
+
+    /**
+     * @return index of the first non-whitespace byte, or the first index which is not scanned yet
+     */
+    int skipWhitespace(byte[] array, int from, int to);
+
+    int skipWhitespace(ByteBuffer buffer, int from, int to);
+}
@@ -0,0 +1,274 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.api.tape;
+
+import io.ib67.sumi.api.JsonCursor;
+import io.ib67.sumi.api.JsonLimits;
+import io.ib67.sumi.api.object.JsonObject;
+import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.api.object.primitive.JsonArray;
+import io.ib67.sumi.api.object.primitive.JsonBoolean;
+import io.ib67.sumi.api.object.primitive.JsonNull;
+import io.ib67.sumi.api.object.primitive.JsonString;
+import io.ib67.sumi.api.object.primitive.numbers.JsonBigDecimal;
+import io.ib67.sumi.api.object.primitive.numbers.JsonDouble;
+import io.ib67.sumi.api.object.primitive.numbers.JsonInt;
+import io.ib67.sumi.api.object.primitive.numbers.JsonLong;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static io.ib67.sumi.api.JsonCursor.*;
+
+/**
+ * A parsed document kept in two flat arrays instead of a tree of {@link JsonValue}s.
+ * <p>
+ * Every value takes one word on the tape, whose highest byte is its {@link JsonCursor} event code:
+ * <ul>
+ *     <li>{@code OBJECT_BEGIN} and {@code ARRAY_BEGIN} hold the index after their end word and the count of
+ *     members in the following 24 bits. Members of objects are a text word for the key followed by the value.</li>
+ *     <li>{@code OBJECT_END} and {@code ARRAY_END} hold the index of their begin word.</li>
+ *     <li>{@code LITERAL_TEXT} holds the offset of the text in the arena, where it is stored as a little-endian int
+ *     length and UTF-8 bytes.</li>
+ *     <li>{@code LITERAL_INTEGER} and {@code LITERAL_DOUBLE} take a second word for the long or the bits of the
+ *     double. Numbers which don't fit hold the offset of their text in the arena plus one instead.</li>
+ *     <li>{@code NULL}, {@code TRUE} and {@code FALSE} hold nothing.</li>
+ * </ul>
+ * Navigate it with a {@link TapeCursor}, or convert it with {@link #toJsonValue()} when the usual tree is needed.
+ * A tape is immutable, so it can be shared between threads.
+ */
+@ApiStatus.AvailableSince("0.1.0")
+public final class JsonTape {
+    static final int TAG_SHIFT = 56;
+    static final long PAYLOAD = (1L << TAG_SHIFT) - 1;
+    static final int COUNT_SHIFT = 32;
+    static final int MAX_COUNT = 0xFFFFFF;
+
+    private final long[] tape;
+    private final byte[] arena;
+
+    JsonTape(long[] tape, byte[] arena) {
+        this.tape = tape;
+        this.arena = arena;
+    }
+
+    /**
+     * Reads the next value of the cursor into a tape.
+     */
+    public static JsonTape read(JsonCursor cursor) {
+        return read(cursor, JsonLimits.DEFAULT.maxDepth());
+    }
+
+    /**
+     * @param maxDepth the most objects and arrays which are nested in each other, deeper values are rejected
+     */
+    public static JsonTape read(JsonCursor cursor, int maxDepth) {
+        return new TapeBuilder(cursor, maxDepth).build();
+    }
+
+    /**
+     * @return a new cursor on the root value
+     */
+    public TapeCursor cursor() {
+        return new TapeCursor(this);
+    }
+
+    public JsonValue toJsonValue() {
+        return toJsonValue(0);
+    }
+
+    /**
+     * @return count of words on the tape
+     */
+    public int tapeLength() {
+        return tape.length;
+    }
+
+    /**
+     * @return count of bytes in the arena
+     */
+    public int arenaLength() {
+        return arena.length;
+    }
+
+    int type(int node) {
+        return (int) (tape[node] >>> TAG_SHIFT);
+    }
+
+    /**
+     * @return index of the word after the value
+     */
+    int after(int node) {
+        final var word = tape[node];
+        return switch ((int) (word >>> TAG_SHIFT)) {
+            case OBJECT_BEGIN, ARRAY_BEGIN -> (int) word;
+            case LITERAL_INTEGER, LITERAL_DOUBLE -> node + 2;
+            default -> node + 1;
+        };
+    }
+
+    int count(int node) {
+        final var count = (int) ((tape[node] & PAYLOAD) >>> COUNT_SHIFT);
+        if (count < MAX_COUNT) {
+            return count;
+        }
+        // saturated, count them one by one.
+        final var object = type(node) == OBJECT_BEGIN;
+        final var end = after(node) - 1;
+        var n = 0;
+        for (int i = node + 1; i < end; i = after(i)) {
+            if (object) {
+                i++;
+            }
+            n++;
+        }
+        return n;
+    }
+
+    String string(int node) {
+        final var offset = (int) (tape[node] & PAYLOAD);
+        return new String(arena, offset + Integer.BYTES, textLength(offset), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares a text with {@code s}, without decoding it when both are ASCII.
+     */
+    boolean textEquals(int node, String s) {
+        final var offset = (int) (tape[node] & PAYLOAD);
+        final var len = textLength(offset);
+        final var length = s.length();
+        if (len < length) {
+            return false;
+        }
+        final var start = offset + Integer.BYTES;
+        for (int j = 0; j < length; j++) {
+            final var c = s.charAt(j);
+            if (c >= 0x80) {
+                return string(node).equals(s);
+            }
+            if (arena[start + j] != c) {
+                return false;
+            }
+        }
+        return len == length;
+    }
+
+    boolean isBigNumber(int node) {
+        return (tape[node] & PAYLOAD) != 0;
+    }
+
+    long longValue(int node) {
+        return tape[node + 1];
+    }
+
+    double doubleValue(int node) {
+        return Double.longBitsToDouble(tape[node + 1]);
+    }
+
+    BigDecimal bigDecimal(int node) {
+        final var offset = (int) (tape[node] & PAYLOAD) - 1;
+        return new BigDecimal(new String(arena, offset + Integer.BYTES, textLength(offset), StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Converts the value without recursion. Its words are in document order, so they are read one after another
+     * while the open containers are kept in a stack.
+     */
+    JsonValue toJsonValue(int node) {
+        final var end = after(node);
+        var containers = new JsonValue[16];
+        var keys = new String[16];
+        var depth = 0;
+        for (int i = node; i < end; ) {
+            final JsonValue value;
+            switch (type(i)) {
+                case OBJECT_BEGIN, ARRAY_BEGIN -> {
+                    if (depth == containers.length) {
+                        containers = Arrays.copyOf(containers, depth * 2);
+                        keys = Arrays.copyOf(keys, depth * 2);
+                    }
+                    containers[depth] = type(i) == OBJECT_BEGIN ? new JsonObject(count(i)) : new JsonArray();
+                    keys[depth++] = null;
+                    i++;
+                    continue;
+                }
+                case OBJECT_END, ARRAY_END -> {
+                    if (depth == 0) {
+                        throw new IllegalStateException("Not a value at " + node);
+                    }
+                    value = containers[--depth];
+                    containers[depth] = null;
+                    i++;
+                }
+                default -> {
+                    if (depth != 0 && containers[depth - 1] instanceof JsonObject && keys[depth - 1] == null) {
+                        keys[depth - 1] = string(i);
+                        i++;
+                        continue;
+                    }
+                    value = scalar(i);
+                    i = after(i);
+                }
+            }
+            if (depth == 0) {
+                return value;
+            }
+            final var parent = containers[depth - 1];
+            if (parent instanceof JsonObject obj) {
+                obj.addProperty(keys[depth - 1], value);
+                keys[depth - 1] = null;
+            } else {
+                ((JsonArray) parent).add(value);
+            }
+        }
+        throw new IllegalStateException("Not a value at " + node);
+    }
+
+    private JsonValue scalar(int node) {
+        return switch (type(node)) {
+            case LITERAL_TEXT -> new JsonString(string(node));
+            case LITERAL_INTEGER -> {
+                if (isBigNumber(node)) {
+                    yield new JsonBigDecimal(bigDecimal(node));
+                }
+                final var l = longValue(node);
+                yield l == (int) l ? new JsonInt((int) l) : new JsonLong(l);
+            }
+            case LITERAL_DOUBLE ->
+                    isBigNumber(node) ? new JsonBigDecimal(bigDecimal(node)) : new JsonDouble(doubleValue(node));
+            case NULL -> JsonNull.NULL;
+            case TRUE -> JsonBoolean.TRUE;
+            case FALSE -> JsonBoolean.FALSE;
+            default -> throw new IllegalStateException("Not a value at " + node);
+        };
+    }
+
+    private int textLength(int offset) {
+        return (arena[offset] & 0xFF) | (arena[offset + 1] & 0xFF) << 8
+                | (arena[offset + 2] & 0xFF) << 16 | (arena[offset + 3] & 0xFF) << 24;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.api.tape;
+
+import io.ib67.sumi.api.JsonCursor;
+import io.ib67.sumi.api.exception.JsonParseException;
+import io.ib67.sumi.api.object.primitive.numbers.JsonBigDecimal;
+import io.ib67.sumi.impl.TokenType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static io.ib67.sumi.api.JsonCursor.*;
+import static io.ib67.sumi.api.tape.JsonTape.*;
+
+/**
+ * Writes the events of one value into a tape, keeping the open containers on an explicit stack.
+ */
+final class TapeBuilder {
+    private static final int EXPECT_VALUE = 0;
+    private static final int EXPECT_KEY = 1;
+    private static final int EXPECT_SEMICOLON = 2;
+
+    private final JsonCursor cursor;
+    private final int maxDepth;
+    private long[] tape;
+    private int tapeLen;
+    private byte[] arena;
+    private int arenaLen;
+    // begin words of open containers, members read so far and what is expected next.
+    private int[] opens = new int[16];
+    private int[] counts = new int[16];
+    private int[] states = new int[16];
+    private int depth;
+
+    TapeBuilder(JsonCursor cursor, int maxDepth) {
+        this.cursor = cursor;
+        this.maxDepth = maxDepth;
+        final var remaining = cursor.source().remaining();
+        tape = new long[Math.max(16, remaining >>> 3)];
+        arena = new byte[Math.max(64, remaining >>> 1)];
+    }
+
+    JsonTape build() {
+        do {
+            final var event = cursor.nextEvent();
+            switch (event) {
+                case COMMA -> {
+                    if (depth == 0) {
+                        throw cursor.error("Impossible token is encountered: COMMA");
+                    }
+                }
+                case SEMICOLON -> {
+                    if (depth == 0 || states[depth - 1] != EXPECT_SEMICOLON) {
+                        throw cursor.error("Unexcepted token: SEMICOLON");
+                    }
+                    states[depth - 1] = EXPECT_VALUE;
+                }
+                case OBJECT_END, ARRAY_END -> close(event);
+                case EOF -> throw cursor.error(depth == 0 ? "TokenStream is ended" : "Unclosed JSON container");
+                default -> {
+                    if (depth != 0) {
+                        switch (states[depth - 1]) {
+                            case EXPECT_KEY -> {
+                                if (event != LITERAL_TEXT) {
+                                    throw cursor.error("Unexcepted token in object: " + TokenType.values()[event]);
+                                }
+                                appendText();
+                                states[depth - 1] = EXPECT_SEMICOLON;
+                                continue;
+                            }
+                            case EXPECT_SEMICOLON ->
+                                    throw cursor.error("Except SEMICOLON but encounter " + TokenType.values()[event]);
+                            default -> {
+                                counts[depth - 1]++;
+                                if (type(opens[depth - 1]) == OBJECT_BEGIN) {
+                                    states[depth - 1] = EXPECT_KEY;
+                                }
+                            }
+                        }
+                    }
+                    appendValue(event);
+                }
+            }
+        } while (depth != 0);
+        return new JsonTape(Arrays.copyOf(tape, tapeLen), Arrays.copyOf(arena, arenaLen));
+    }
+
+    private void appendValue(int event) {
+        switch (event) {
+            case OBJECT_BEGIN, ARRAY_BEGIN -> open(event);
+            case LITERAL_TEXT -> appendText();
+            case LITERAL_INTEGER -> {
+                final long l;
+                // 18 chars always fit, longer ones are only decoded as a long if they are in range.
+                if (cursor.tokenEnd() - cursor.tokenStart() <= 18) {
+                    l = cursor.currentLong();
+                } else {
+                    final var number = cursor.currentNumber();
+                    if (number instanceof JsonBigDecimal) {
+                        appendBigNumber(event);
+                        return;
+                    }
+                    l = number.getNumber().longValue();
+                }
+                append((long) event << TAG_SHIFT);
+                append(l);
+            }
+            case LITERAL_DOUBLE -> {
+                final var d = cursor.currentDouble();
+                if (Double.isInfinite(d)) {
+                    // checked here, so the tape never holds a text which BigDecimal rejects.
+                    cursor.currentBigDecimal();
+                    appendBigNumber(event);
+                    return;
+                }
+                append((long) event << TAG_SHIFT);
+                append(Double.doubleToRawLongBits(d));
+            }
+            case NULL, TRUE, FALSE -> append((long) event << TAG_SHIFT);
+            default -> throw cursor.error("Impossible token is encountered: " + TokenType.values()[event]);
+        }
+    }
+
+    private void open(int event) {
+        if (depth >= maxDepth) {
+            throw new JsonParseException("Nesting is deeper than " + maxDepth, cursor.source(), cursor.tokenStart());
+        }
+        if (depth == opens.length) {
+            opens = Arrays.copyOf(opens, depth * 2);
+            counts = Arrays.copyOf(counts, depth * 2);
+            states = Arrays.copyOf(states, depth * 2);
+        }
+        opens[depth] = tapeLen;
+        counts[depth] = 0;
+        states[depth] = event == OBJECT_BEGIN ? EXPECT_KEY : EXPECT_VALUE;
+        depth++;
+        // patched when closed.
+        append((long) event << TAG_SHIFT);
+    }
+
+    private void close(int event) {
+        if (depth == 0) {
+            throw cursor.error("Unexcepted token: " + TokenType.values()[event]);
+        }
+        final var begin = opens[--depth];
+        final var beginEvent = event == OBJECT_END ? OBJECT_BEGIN : ARRAY_BEGIN;
+        if (type(begin) != beginEvent) {
+            throw cursor.error("Mismatched end of container");
+        }
+        if (beginEvent == OBJECT_BEGIN && states[depth] == EXPECT_SEMICOLON) {
+            throw cursor.error("Except SEMICOLON but encounter OBJECT_END");
+        }
+        if (beginEvent == OBJECT_BEGIN && states[depth] == EXPECT_VALUE) {
+            throw cursor.error("Excepted a value after the key");
+        }
+        append((long) event << TAG_SHIFT | begin);
+        final long count = Math.min(counts[depth], MAX_COUNT);
+        tape[begin] |= count << COUNT_SHIFT | tapeLen;
+    }
+
+    private int type(int node) {
+        return (int) (tape[node] >>> TAG_SHIFT);
+    }
+
+    private void appendText() {
+        final var offset = arenaLen;
+        if (cursor.hasEscapes()) {
+            final var bytes = cursor.currentString().getBytes(StandardCharsets.UTF_8);
+            appendArena(bytes, bytes.length);
+        } else {
+            final var len = cursor.tokenEnd() - cursor.tokenStart();
+            reserveArena(len);
+            cursor.source().get(cursor.tokenStart(), arena, arenaLen, len);
+            arenaLen += len;
+        }
+        append((long) LITERAL_TEXT << TAG_SHIFT | offset);
+    }
+
+    private void appendBigNumber(int event) {
+        final var offset = arenaLen;
+        final var len = cursor.tokenEnd() - cursor.tokenStart();
+        reserveArena(len);
+        cursor.source().get(cursor.tokenStart(), arena, arenaLen, len);
+        arenaLen += len;
+        append((long) event << TAG_SHIFT | (offset + 1));
+        append(0);
+    }
+
+    private void appendArena(byte[] bytes, int len) {
+        reserveArena(len);
+        System.arraycopy(bytes, 0, arena, arenaLen, len);
+        arenaLen += len;
+    }
+
+    /**
+     * Makes room for {@code len} bytes and writes the length prefix.
+     */
+    private void reserveArena(int len) {
+        if (arenaLen + Integer.BYTES + len > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaLen + Integer.BYTES + len));
+        }
+        arena[arenaLen] = (byte) len;
+        arena[arenaLen + 1] = (byte) (len >>> 8);
+        arena[arenaLen + 2] = (byte) (len >>> 16);
+        arena[arenaLen + 3] = (byte) (len >>> 24);
+        arenaLen += Integer.BYTES;
+    }
+
+    private void append(long word) {
+        if (tapeLen == tape.length) {
+            tape = Arrays.copyOf(tape, tapeLen * 2);
+        }
+        tape[tapeLen++] = word;
+    }
+}
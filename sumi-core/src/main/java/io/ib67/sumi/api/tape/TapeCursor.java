@@ -0,0 +1,253 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.api.tape;
+
+import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.impl.TokenType;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static io.ib67.sumi.api.JsonCursor.*;
+
+/**
+ * Walks a {@link JsonTape} without allocating, starting at the root value.
+ * <p>
+ * {@link #enter()}, {@link #find(String)} and {@link #at(int)} move into the current container,
+ * {@link #next()} moves to the following sibling and {@link #exit()} goes back to the container.
+ * Types are reported as {@link io.ib67.sumi.api.JsonCursor} event codes.
+ */
+@ApiStatus.AvailableSince("0.1.0")
+public final class TapeCursor {
+    private final JsonTape tape;
+    private int node;
+    private int[] parents = new int[8];
+    private int depth;
+
+    TapeCursor(JsonTape tape) {
+        this.tape = tape;
+    }
+
+    /**
+     * Moves back to the root value.
+     */
+    public void reset() {
+        node = 0;
+        depth = 0;
+    }
+
+    public int type() {
+        return tape.type(node);
+    }
+
+    /**
+     * @return count of members or elements of the current container
+     */
+    public int size() {
+        requireContainer();
+        return tape.count(node);
+    }
+
+    /**
+     * Moves to the first member or element of the current container.
+     *
+     * @return false if it is empty, the cursor is not moved then
+     */
+    public boolean enter() {
+        requireContainer();
+        final var first = tape.type(node) == OBJECT_BEGIN ? node + 2 : node + 1;
+        if (first >= tape.after(node)) {
+            return false;
+        }
+        push();
+        node = first;
+        return true;
+    }
+
+    /**
+     * Moves to the following member or element in the same container.
+     *
+     * @return false if this is the last one, the cursor is not moved then
+     */
+    public boolean next() {
+        if (depth == 0) {
+            return false;
+        }
+        final var parent = parents[depth - 1];
+        var next = tape.after(node);
+        if (next >= tape.after(parent) - 1) {
+            return false;
+        }
+        if (tape.type(parent) == OBJECT_BEGIN) {
+            next++;
+        }
+        node = next;
+        return true;
+    }
+
+    /**
+     * Moves back to the container of the current value.
+     *
+     * @return false on the root value
+     */
+    public boolean exit() {
+        if (depth == 0) {
+            return false;
+        }
+        node = parents[--depth];
+        return true;
+    }
+
+    /**
+     * Moves to the value of {@code key} in the current object. The last one wins if the key is duplicated.
+     *
+     * @return false if there is no such key, the cursor is not moved then
+     */
+    public boolean find(String key) {
+        if (tape.type(node) != OBJECT_BEGIN) {
+            throw new IllegalStateException("Current value is not an object");
+        }
+        final var end = tape.after(node) - 1;
+        var found = -1;
+        for (int i = node + 1; i < end; i = tape.after(i + 1)) {
+            if (tape.textEquals(i, key)) {
+                found = i + 1;
+            }
+        }
+        if (found < 0) {
+            return false;
+        }
+        push();
+        node = found;
+        return true;
+    }
+
+    /**
+     * Moves to the element at {@code index} of the current array.
+     *
+     * @return false if the index is out of bounds, the cursor is not moved then
+     */
+    public boolean at(int index) {
+        if (tape.type(node) != ARRAY_BEGIN) {
+            throw new IllegalStateException("Current value is not an array");
+        }
+        final var end = tape.after(node) - 1;
+        var i = node + 1;
+        for (int n = 0; n < index && i < end; n++) {
+            i = tape.after(i);
+        }
+        if (index < 0 || i >= end) {
+            return false;
+        }
+        push();
+        node = i;
+        return true;
+    }
+
+    /**
+     * @return key of the current member, or null if the current value is not in an object
+     */
+    public String key() {
+        if (depth == 0 || tape.type(parents[depth - 1]) != OBJECT_BEGIN) {
+            return null;
+        }
+        return tape.string(node - 1);
+    }
+
+    public String getString() {
+        require(LITERAL_TEXT);
+        return tape.string(node);
+    }
+
+    public long getLong() {
+        return switch (tape.type(node)) {
+            case LITERAL_INTEGER -> tape.isBigNumber(node) ? tape.bigDecimal(node).longValueExact() : tape.longValue(node);
+            case LITERAL_DOUBLE -> (long) getDouble();
+            default -> throw new IllegalStateException("Current value is not a number");
+        };
+    }
+
+    public double getDouble() {
+        return switch (tape.type(node)) {
+            case LITERAL_INTEGER, LITERAL_DOUBLE -> {
+                if (tape.isBigNumber(node)) {
+                    yield tape.bigDecimal(node).doubleValue();
+                }
+                yield tape.type(node) == LITERAL_INTEGER ? tape.longValue(node) : tape.doubleValue(node);
+            }
+            default -> throw new IllegalStateException("Current value is not a number");
+        };
+    }
+
+    public BigDecimal getBigDecimal() {
+        return switch (tape.type(node)) {
+            case LITERAL_INTEGER ->
+                    tape.isBigNumber(node) ? tape.bigDecimal(node) : BigDecimal.valueOf(tape.longValue(node));
+            case LITERAL_DOUBLE ->
+                    tape.isBigNumber(node) ? tape.bigDecimal(node) : BigDecimal.valueOf(tape.doubleValue(node));
+            default -> throw new IllegalStateException("Current value is not a number");
+        };
+    }
+
+    public boolean getBoolean() {
+        return switch (tape.type(node)) {
+            case TRUE -> true;
+            case FALSE -> false;
+            default -> throw new IllegalStateException("Current value is not a boolean");
+        };
+    }
+
+    public boolean isNull() {
+        return tape.type(node) == NULL;
+    }
+
+    /**
+     * Converts the current value and its children into {@link JsonValue}s.
+     */
+    public JsonValue toJsonValue() {
+        return tape.toJsonValue(node);
+    }
+
+    private void push() {
+        if (depth == parents.length) {
+            parents = Arrays.copyOf(parents, depth * 2);
+        }
+        parents[depth++] = node;
+    }
+
+    private void require(int type) {
+        if (tape.type(node) != type) {
+            throw new IllegalStateException("Current value is not a " + TokenType.values()[type]);
+        }
+    }
+
+    private void requireContainer() {
+        final var type = tape.type(node);
+        if (type != OBJECT_BEGIN && type != ARRAY_BEGIN) {
+            throw new IllegalStateException("Current value is not a container");
+        }
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal class file assembler for the generated codecs.
+ * <p>
+ * It writes version 49 class files, which predate the {@code StackMapTable} attribute, so the verifier infers the
+ * frames itself and the generator only has to track max stack and locals. Jumps are limited to 16-bit offsets.
+ */
+final class ClassFileWriter {
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+    static final int ACC_SYNTHETIC = 0x1000;
+
+    static final int ACONST_NULL = 0x01;
+    static final int ICONST_0 = 0x03;
+    static final int LCONST_0 = 0x09;
+    static final int FCONST_0 = 0x0B;
+    static final int DCONST_0 = 0x0E;
+    static final int SIPUSH = 0x11;
+    static final int ILOAD = 0x15;
+    static final int LLOAD = 0x16;
+    static final int FLOAD = 0x17;
+    static final int DLOAD = 0x18;
+    static final int ALOAD = 0x19;
+    static final int ISTORE = 0x36;
+    static final int LSTORE = 0x37;
+    static final int FSTORE = 0x38;
+    static final int DSTORE = 0x39;
+    static final int ASTORE = 0x3A;
+    static final int AALOAD = 0x32;
+    static final int POP = 0x57;
+    static final int DUP = 0x59;
+    static final int I2L = 0x85;
+    static final int D2F = 0x90;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9A;
+    static final int GOTO = 0xA7;
+    static final int LOOKUPSWITCH = 0xAB;
+    static final int ARETURN = 0xB0;
+    static final int RETURN = 0xB1;
+    static final int GETSTATIC = 0xB2;
+    static final int PUTSTATIC = 0xB3;
+    static final int INVOKEVIRTUAL = 0xB6;
+    static final int INVOKESPECIAL = 0xB7;
+    static final int INVOKESTATIC = 0xB8;
+    static final int INVOKEINTERFACE = 0xB9;
+    static final int CHECKCAST = 0xC0;
+    static final int IFNULL = 0xC6;
+    static final int IFNONNULL = 0xC7;
+
+    private static final int VERSION = 49;
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final Bytes pool = new Bytes();
+    private final Map<String, Integer> constants = new HashMap<>();
+    private int poolCount = 1;
+    private final Bytes members = new Bytes();
+    private int fieldCount;
+    private final List<Bytes> methods = new ArrayList<>();
+    private final int access;
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+
+    /**
+     * @param name internal names, such as {@code java/lang/Object}
+     */
+    ClassFileWriter(int access, String name, String superName, String... interfaces) {
+        this.access = access;
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+        this.interfaces = Arrays.stream(interfaces).mapToInt(this::classRef).toArray();
+    }
+
+    int utf8(String s) {
+        final var index = constants.get("U" + s);
+        if (index != null) {
+            return index;
+        }
+        final var bytes = modifiedUtf8(s);
+        pool.put1(CONSTANT_UTF8).put2(bytes.length).put(bytes);
+        return add("U" + s);
+    }
+
+    int classRef(String internalName) {
+        return ref("C" + internalName, CONSTANT_CLASS, utf8(internalName), -1);
+    }
+
+    int string(String s) {
+        return ref("S" + s, CONSTANT_STRING, utf8(s), -1);
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        return ref("N" + name + ' ' + descriptor, CONSTANT_NAME_AND_TYPE, utf8(name), utf8(descriptor));
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        return ref(tag + owner + '.' + name + ' ' + descriptor, tag, classRef(owner), nameAndType(name, descriptor));
+    }
+
+    private int ref(String key, int tag, int first, int second) {
+        final var index = constants.get(key);
+        if (index != null) {
+            return index;
+        }
+        pool.put1(tag).put2(first);
+        if (second >= 0) {
+            pool.put2(second);
+        }
+        return add(key);
+    }
+
+    private int add(String key) {
+        constants.put(key, poolCount);
+        return poolCount++;
+    }
+
+    void field(int access, String name, String descriptor) {
+        members.put2(access).put2(utf8(name)).put2(utf8(descriptor)).put2(0);
+        fieldCount++;
+    }
+
+    Code method(int access, String name, String descriptor) {
+        return new Code(access, name, descriptor);
+    }
+
+    byte[] toByteArray() {
+        final var out = new Bytes();
+        out.put4(0xCAFEBABE).put2(0).put2(VERSION);
+        out.put2(poolCount).put(pool.toByteArray());
+        out.put2(access).put2(thisClass).put2(superClass).put2(interfaces.length);
+        for (final var i : interfaces) {
+            out.put2(i);
+        }
+        out.put2(fieldCount).put(members.toByteArray());
+        out.put2(methods.size());
+        for (final var method : methods) {
+            out.put(method.toByteArray());
+        }
+        return out.put2(0).toByteArray();
+    }
+
+    private static byte[] modifiedUtf8(String s) {
+        final var out = new Bytes();
+        for (int i = 0; i < s.length(); i++) {
+            final var c = s.charAt(i);
+            if (c != 0 && c < 0x80) {
+                out.put1(c);
+            } else if (c < 0x800) {
+                out.put1(0xC0 | c >> 6).put1(0x80 | c & 0x3F);
+            } else {
+                out.put1(0xE0 | c >> 12).put1(0x80 | c >> 6 & 0x3F).put1(0x80 | c & 0x3F);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return count of local slots taken by the arguments of the method descriptor
+     */
+    static int argumentSlots(String descriptor) {
+        var slots = 0;
+        for (int i = 1; descriptor.charAt(i) != ')'; i++) {
+            final var c = descriptor.charAt(i);
+            if (c == 'J' || c == 'D') {
+                slots += 2;
+                continue;
+            }
+            slots++;
+            while (descriptor.charAt(i) == '[') {
+                i++;
+            }
+            if (descriptor.charAt(i) == 'L') {
+                i = descriptor.indexOf(';', i);
+            }
+        }
+        return slots;
+    }
+
+    static final class Label {
+        private int position = -1;
+        // pairs of the position of the offset and the position of the instruction.
+        private final List<int[]> references = new ArrayList<>();
+    }
+
+    final class Code {
+        private final int access;
+        private final int name;
+        private final int descriptor;
+        private final Bytes code = new Bytes();
+
+        private Code(int access, String name, String descriptor) {
+            this.access = access;
+            this.name = utf8(name);
+            this.descriptor = utf8(descriptor);
+        }
+
+        Code op(int opcode) {
+            code.put1(opcode);
+            return this;
+        }
+
+        Code var(int opcode, int index) {
+            code.put1(opcode).put1(index);
+            return this;
+        }
+
+        Code push(int value) {
+            code.put1(SIPUSH).put2(value);
+            return this;
+        }
+
+        Code ldc(String s) {
+            // ldc_w
+            code.put1(0x13).put2(string(s));
+            return this;
+        }
+
+        Code ldcClass(String internalName) {
+            code.put1(0x13).put2(classRef(internalName));
+            return this;
+        }
+
+        Code field(int opcode, String owner, String name, String descriptor) {
+            code.put1(opcode).put2(memberRef(CONSTANT_FIELDREF, owner, name, descriptor));
+            return this;
+        }
+
+        Code invoke(int opcode, String owner, String name, String descriptor) {
+            if (opcode == INVOKEINTERFACE) {
+                code.put1(opcode).put2(memberRef(CONSTANT_INTERFACE_METHODREF, owner, name, descriptor))
+                        .put1(1 + argumentSlots(descriptor)).put1(0);
+            } else {
+                code.put1(opcode).put2(memberRef(CONSTANT_METHODREF, owner, name, descriptor));
+            }
+            return this;
+        }
+
+        Code type(int opcode, String internalName) {
+            code.put1(opcode).put2(classRef(internalName));
+            return this;
+        }
+
+        Code jump(int opcode, Label label) {
+            final var at = code.size();
+            code.put1(opcode);
+            reference(label, at, 2);
+            return this;
+        }
+
+        Code mark(Label label) {
+            label.position = code.size();
+            for (final var reference : label.references) {
+                patch(reference[0], label.position - reference[1], reference[2]);
+            }
+            return this;
+        }
+
+        /**
+         * @param keys sorted ascending
+         */
+        Code lookupSwitch(Label otherwise, int[] keys, Label[] labels) {
+            final var at = code.size();
+            code.put1(LOOKUPSWITCH);
+            while (code.size() % 4 != 0) {
+                code.put1(0);
+            }
+            reference(otherwise, at, 4);
+            code.put4(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                code.put4(keys[i]);
+                reference(labels[i], at, 4);
+            }
+            return this;
+        }
+
+        private void reference(Label label, int instruction, int width) {
+            final var offsetAt = code.size();
+            if (width == 2) {
+                code.put2(0);
+            } else {
+                code.put4(0);
+            }
+            if (label.position >= 0) {
+                patch(offsetAt, label.position - instruction, width);
+            } else {
+                label.references.add(new int[]{offsetAt, instruction, width});
+            }
+        }
+
+        private void patch(int at, int offset, int width) {
+            if (width == 2) {
+                if (offset != (short) offset) {
+                    throw new IllegalStateException("Method is too large");
+                }
+                code.set2(at, offset);
+            } else {
+                code.set4(at, offset);
+            }
+        }
+
+        void end(int maxStack, int maxLocals) {
+            final var bytes = code.toByteArray();
+            final var method = new Bytes();
+            method.put2(access).put2(name).put2(descriptor).put2(1);
+            method.put2(utf8("Code")).put4(12 + bytes.length).put2(maxStack).put2(maxLocals)
+                    .put4(bytes.length).put(bytes).put2(0).put2(0);
+            methods.add(method);
+        }
+    }
+
+    private static final class Bytes {
+        private byte[] bytes = new byte[64];
+        private int size;
+
+        private Bytes ensure(int n) {
+            if (size + n > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + n));
+            }
+            return this;
+        }
+
+        Bytes put1(int b) {
+            ensure(1).bytes[size++] = (byte) b;
+            return this;
+        }
+
+        Bytes put2(int s) {
+            ensure(2);
+            set2(size, s);
+            size += 2;
+            return this;
+        }
+
+        Bytes put4(int i) {
+            ensure(4);
+            set4(size, i);
+            size += 4;
+            return this;
+        }
+
+        Bytes put(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+            return this;
+        }
+
+        void set2(int at, int s) {
+            bytes[at] = (byte) (s >>> 8);
+            bytes[at + 1] = (byte) s;
+        }
+
+        void set4(int at, int i) {
+            set2(at, i >>> 16);
+            set2(at + 2, i);
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import io.ib67.sumi.api.object.JsonValue;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The map of {@link io.ib67.sumi.api.object.JsonObject}, which keeps members in insertion order in flat arrays.
+ * <p>
+ * Small objects are searched by comparing the cached hashes of keys one by one. Objects with more than
+ * {@link #MAX_SCANNED_SIZE} members get an open-addressing index with linear probing, which maps hashes to positions
+ * in the arrays. Removing a member shifts the following ones and rebuilds the index.
+ */
+public final class CompactJsonMap extends AbstractMap<String, JsonValue> {
+    private static final int MAX_SCANNED_SIZE = 8;
+    private static final int DEFAULT_CAPACITY = 4;
+    private static final String[] EMPTY_KEYS = new String[0];
+    private static final JsonValue[] EMPTY_VALUES = new JsonValue[0];
+    private static final int[] EMPTY_HASHES = new int[0];
+
+    private String[] keys;
+    private JsonValue[] values;
+    private int[] hashes;
+    private int size;
+    /**
+     * Positions plus one of the members, or null if the map is small enough to be scanned.
+     */
+    private int[] index;
+    private int modCount;
+    private Set<Entry<String, JsonValue>> entrySet;
+
+    /**
+     * @param expectedSize count of members to make room for, the arrays are allocated on the first put if it's 0
+     */
+    public CompactJsonMap(int expectedSize) {
+        if (expectedSize <= 0) {
+            keys = EMPTY_KEYS;
+            values = EMPTY_VALUES;
+            hashes = EMPTY_HASHES;
+        } else {
+            keys = new String[expectedSize];
+            values = new JsonValue[expectedSize];
+            hashes = new int[expectedSize];
+        }
+    }
+
+    private static int hash(Object key) {
+        final var h = Objects.hashCode(key);
+        return h ^ h >>> 16;
+    }
+
+    private int find(Object key) {
+        final var h = hash(key);
+        if (index == null) {
+            for (int i = 0; i < size; i++) {
+                if (hashes[i] == h && Objects.equals(keys[i], key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        final var mask = index.length - 1;
+        for (int slot = h & mask; ; slot = slot + 1 & mask) {
+            final var at = index[slot] - 1;
+            if (at < 0) {
+                return -1;
+            }
+            if (hashes[at] == h && Objects.equals(keys[at], key)) {
+                return at;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public JsonValue get(Object key) {
+        final var at = find(key);
+        return at < 0 ? null : values[at];
+    }
+
+    @Override
+    public JsonValue put(String key, JsonValue value) {
+        final var at = find(key);
+        if (at >= 0) {
+            final var old = values[at];
+            values[at] = value;
+            return old;
+        }
+        if (size == keys.length) {
+            final var capacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+        final var h = hash(key);
+        keys[size] = key;
+        values[size] = value;
+        hashes[size] = h;
+        size++;
+        modCount++;
+        if (index != null && size * 2 <= index.length) {
+            insert(index, h, size);
+        } else if (size > MAX_SCANNED_SIZE) {
+            rebuildIndex();
+        }
+        return null;
+    }
+
+    @Override
+    public JsonValue remove(Object key) {
+        final var at = find(key);
+        if (at < 0) {
+            return null;
+        }
+        final var old = values[at];
+        removeAt(at);
+        return old;
+    }
+
+    private void removeAt(int at) {
+        final var moved = size - at - 1;
+        System.arraycopy(keys, at + 1, keys, at, moved);
+        System.arraycopy(values, at + 1, values, at, moved);
+        System.arraycopy(hashes, at + 1, hashes, at, moved);
+        size--;
+        keys[size] = null;
+        values[size] = null;
+        modCount++;
+        if (index != null) {
+            rebuildIndex();
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        index = null;
+        modCount++;
+    }
+
+    private void rebuildIndex() {
+        if (size <= MAX_SCANNED_SIZE) {
+            index = null;
+            return;
+        }
+        // at most half full.
+        final var index = new int[Integer.highestOneBit(size * 4 - 1)];
+        for (int i = 0; i < size; i++) {
+            insert(index, hashes[i], i + 1);
+        }
+        this.index = index;
+    }
+
+    private static void insert(int[] index, int hash, int position) {
+        final var mask = index.length - 1;
+        var slot = hash & mask;
+        while (index[slot] != 0) {
+            slot = slot + 1 & mask;
+        }
+        index[slot] = position;
+    }
+
+    @Override
+    public Set<Entry<String, JsonValue>> entrySet() {
+        var entrySet = this.entrySet;
+        if (entrySet == null) {
+            this.entrySet = entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, JsonValue>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    CompactJsonMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, JsonValue>> {
+        private int next;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Entry<String, JsonValue> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return new Member(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    private final class Member implements Entry<String, JsonValue> {
+        private final int at;
+        private final String key;
+
+        private Member(int at) {
+            this.at = at;
+            this.key = keys[at];
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public JsonValue getValue() {
+            // the member may have been moved by a removal.
+            return keys[at] == key ? values[at] : get(key);
+        }
+
+        @Override
+        public JsonValue setValue(JsonValue value) {
+            if (keys[at] != key) {
+                return put(key, value);
+            }
+            final var old = values[at];
+            values[at] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry<?, ?> e && Objects.equals(key, e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.api.object.primitive.JsonArray;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * An array whose elements are kept somewhere else until they are needed. {@link #size()}, {@link #isEmpty()} and
+ * {@link #get(int)} are answered by the subclass, any other operation copies all elements into the list first and
+ * behaves like a plain {@link JsonArray} since then.
+ */
+public abstract sealed class DeferredJsonArray extends JsonArray permits LazyJsonArray, NumericJsonArray {
+    private boolean materialized;
+
+    protected abstract int deferredSize();
+
+    protected abstract JsonValue deferredGet(int index);
+
+    /**
+     * Called after all elements are copied into the list, to drop whatever backed them.
+     */
+    protected void release() {
+    }
+
+    protected final void materialize() {
+        if (materialized) {
+            return;
+        }
+        materialized = true;
+        final var size = deferredSize();
+        super.ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            super.add(deferredGet(i));
+        }
+        release();
+    }
+
+    @Override
+    public int size() {
+        return materialized ? super.size() : deferredSize();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public JsonValue get(int index) {
+        if (materialized) {
+            return super.get(index);
+        }
+        return deferredGet(Objects.checkIndex(index, deferredSize()));
+    }
+
+    // boilerplate.
+    @Override
+    public void trimToSize() {
+        materialize();
+        super.trimToSize();
+    }
+
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        materialize();
+        super.ensureCapacity(minCapacity);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        materialize();
+        return super.contains(o);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        materialize();
+        return super.indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        materialize();
+        return super.lastIndexOf(o);
+    }
+
+    @Override
+    public Object clone() {
+        materialize();
+        return super.clone();
+    }
+
+    @Override
+    public Object[] toArray() {
+        materialize();
+        return super.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        materialize();
+        return super.toArray(a);
+    }
+
+    @Override
+    public JsonValue set(int index, JsonValue element) {
+        materialize();
+        return super.set(index, element);
+    }
+
+    @Override
+    public boolean add(JsonValue value) {
+        materialize();
+        return super.add(value);
+    }
+
+    @Override
+    public void add(int index, JsonValue element) {
+        materialize();
+        super.add(index, element);
+    }
+
+    @Override
+    public JsonValue remove(int index) {
+        materialize();
+        return super.remove(index);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        materialize();
+        return super.remove(o);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        materialize();
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        materialize();
+        return super.hashCode();
+    }
+
+    @Override
+    public void clear() {
+        materialize();
+        super.clear();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends JsonValue> c) {
+        materialize();
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends JsonValue> c) {
+        materialize();
+        return super.addAll(index, c);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        materialize();
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        materialize();
+        return super.retainAll(c);
+    }
+
+    @Override
+    public ListIterator<JsonValue> listIterator(int index) {
+        materialize();
+        return super.listIterator(index);
+    }
+
+    @Override
+    public ListIterator<JsonValue> listIterator() {
+        materialize();
+        return super.listIterator();
+    }
+
+    @Override
+    public Iterator<JsonValue> iterator() {
+        materialize();
+        return super.iterator();
+    }
+
+    @Override
+    public List<JsonValue> subList(int fromIndex, int toIndex) {
+        materialize();
+        return super.subList(fromIndex, toIndex);
+    }
+
+    @Override
+    public void forEach(Consumer<? super JsonValue> action) {
+        materialize();
+        super.forEach(action);
+    }
+
+    @Override
+    public Spliterator<JsonValue> spliterator() {
+        materialize();
+        return super.spliterator();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super JsonValue> filter) {
+        materialize();
+        return super.removeIf(filter);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<JsonValue> operator) {
+        materialize();
+        super.replaceAll(operator);
+    }
+
+    @Override
+    public void sort(Comparator<? super JsonValue> c) {
+        materialize();
+        super.sort(c);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import io.ib67.sumi.api.JsonCursor;
+import io.ib67.sumi.api.SymbolTable;
+import io.ib67.sumi.api.object.JsonValue;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Reads whitespace-separated values, usually one per line, between two absolute indexes of a buffer. One tokenizer is
+ * reused for all values. It splits between top-level values, so values may span multiple lines.
+ */
+final class JsonLineSpliterator implements Spliterator<JsonValue> {
+    /**
+     * Ranges smaller than it are not split.
+     */
+    private static final int MIN_SPLIT_SIZE = 1 << 16;
+
+    private final ByteBuffer buffer;
+    @Nullable
+    private final SymbolTable symbols;
+    private final int maxDepth;
+    private int pos;
+    private int limit;
+    // created on the first value, and again after the range is changed by a split.
+    private JsonTokenReader tokens;
+    private JsonReader reader;
+
+    JsonLineSpliterator(ByteBuffer buffer, int pos, int limit, @Nullable SymbolTable symbols, int maxDepth) {
+        this.buffer = buffer;
+        this.symbols = symbols;
+        this.maxDepth = maxDepth;
+        this.pos = pos;
+        this.limit = limit;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super JsonValue> action) {
+        if (tokens == null) {
+            tokens = new JsonTokenReader(buffer.duplicate().limit(limit).position(pos), symbols);
+            reader = new JsonReader(tokens, maxDepth);
+        }
+        if (!tokens.hasNext()) {
+            pos = limit;
+            return false;
+        }
+        final var value = reader.readValue();
+        pos = tokens.position();
+        action.accept(value);
+        return true;
+    }
+
+    /**
+     * Splits after the first value which ends beyond the middle. Values before it are skipped by brackets and quotes
+     * only, so a value spanning multiple lines is never cut.
+     */
+    @Override
+    public Spliterator<JsonValue> trySplit() {
+        if (limit - pos < MIN_SPLIT_SIZE) {
+            return null;
+        }
+        final var middle = pos + (limit - pos) / 2;
+        final var scanner = new JsonTokenReader(buffer.duplicate().limit(limit).position(pos), null);
+        int at;
+        do {
+            if (scanner.nextEvent() == JsonCursor.EOF) {
+                return null;
+            }
+            scanner.skipChildren();
+            at = scanner.position();
+        } while (at < middle);
+        if (!scanner.hasNext()) {
+            return null;
+        }
+        final var prefix = new JsonLineSpliterator(buffer, pos, at, symbols, maxDepth);
+        pos = at;
+        tokens = null;
+        reader = null;
+        return prefix;
+    }
+
+    /**
+     * @return count of remaining bytes, which is in proportion to the count of values
+     */
+    @Override
+    public long estimateSize() {
+        return limit - pos;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+}
@@ -24,6 +24,8 @@
 
 package io.ib67.sumi.impl;
 
+import io.ib67.sumi.api.JsonCursor;
+import io.ib67.sumi.api.JsonLimits;
 import io.ib67.sumi.api.exception.JsonParseException;
 import io.ib67.sumi.api.object.JsonObject;
 import io.ib67.sumi.api.object.JsonValue;
@@ -31,88 +33,266 @@ import io.ib67.sumi.api.object.primitive.JsonArray;
 import io.ib67.sumi.api.object.primitive.JsonBoolean;
 import io.ib67.sumi.api.object.primitive.JsonNull;
 import io.ib67.sumi.api.object.primitive.JsonString;
-import io.ib67.sumi.api.object.primitive.numbers.JsonDouble;
-import io.ib67.sumi.api.object.primitive.numbers.JsonInt;
 
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.Objects;
 
+import static io.ib67.sumi.api.JsonCursor.*;
+
+/**
+ * Builds trees without recursion. Open containers are kept in a stack which is reused for every value, so the depth
+ * of a document is bounded by {@link #maxDepth} instead of the stack of the thread.
+ */
 public class JsonReader {
-    private final Iterator<JsonToken> tokenIterator;
+    private static final int MAX_HINTED_DEPTH = 16;
+    private static final int INITIAL_DEPTH = 16;
+    private final JsonCursor cursor;
+    private final int maxDepth;
+    /**
+     * Sizes of the last objects by their depths. Objects at the same depth are likely of the same shape, so they are
+     * allocated with these sizes.
+     */
+    private final int[] sizeHints = new int[MAX_HINTED_DEPTH];
+    // the open container at every depth is either an object or an array, the other slot is null.
+    private JsonObject[] objects = new JsonObject[INITIAL_DEPTH];
+    private JsonArray[] arrays = new JsonArray[INITIAL_DEPTH];
+    private String[] keys = new String[INITIAL_DEPTH];
+    private int depth;
+    /**
+     * The first event of an array which is not a number, it's taken by the array after the numbers are given up.
+     */
+    private int pending = -1;
+    private final NumericJsonArray.Builder numbers = new NumericJsonArray.Builder();
 
-    public JsonReader(Iterator<JsonToken> tokenIterator) {
-        Objects.requireNonNull(tokenIterator);
-        this.tokenIterator = tokenIterator;
+    public JsonReader(JsonCursor cursor) {
+        this(cursor, JsonLimits.DEFAULT.maxDepth());
+    }
+
+    /**
+     * @param maxDepth the most objects and arrays which are nested in each other
+     */
+    public JsonReader(JsonCursor cursor, int maxDepth) {
+        Objects.requireNonNull(cursor);
+        this.cursor = cursor;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Forgets the state of a failed read, so the reader can be used for the next value of its cursor.
+     */
+    public void reset() {
+        Arrays.fill(objects, 0, depth, null);
+        Arrays.fill(arrays, 0, depth, null);
+        Arrays.fill(keys, 0, depth, null);
+        depth = 0;
+        pending = -1;
+        numbers.reset();
     }
 
     /**
      * Only call it when the OBJECT_BEGIN was polled.
      */
     public JsonObject readObject() {
-        if (!tokenIterator.hasNext()) {
-            throw new JsonParseException("Cannot iterate more json tokens for reading an object.");
-        }
-        final var obj = new JsonObject();
-        while (tokenIterator.hasNext()) {
-            final var token = tokenIterator.next();
-            switch (token.typeOfToken()) {
-                case LITERAL_TEXT -> {
-                    if (!tokenIterator.hasNext()) {
-                        throw new JsonParseException("Unexcepted Literal: " + token.data());
-                    }
-                    var subToken = tokenIterator.next();
-                    if (subToken.typeOfToken() != TokenType.SEMICOLON) {
-                        throw new JsonParseException("Except SEMICOLON but encounter" + subToken.typeOfToken());
-                    }
-                    obj.addProperty((String) token.data(), readValue());
-                }
-                case OBJECT_END -> {
-                    return obj;
-                }
-            }
-        }
-        throw new JsonParseException("Unclosed JSON Object");
+        return (JsonObject) readNested(OBJECT_BEGIN);
+    }
+
+    /**
+     * Only call it when the ARRAY_BEGIN was polled. Arrays of numbers of one kind are kept in primitive arrays, see
+     * {@link NumericJsonArray}.
+     */
+    public JsonArray readArray() {
+        return (JsonArray) readNested(ARRAY_BEGIN);
     }
 
     public JsonValue readValue() {
-        if (tokenIterator.hasNext()) {
-            final var token = tokenIterator.next();
-            return readValue(token);
-        } else {
-            throw new JsonParseException("TokenStream is ended");
+        final var event = cursor.nextEvent();
+        if (event == EOF) {
+            throw cursor.error("TokenStream is ended");
         }
+        return readValue(event);
     }
 
-    private JsonValue readValue(JsonToken token) {
-        return switch (token.typeOfToken()) {
+    /**
+     * Reads the value whose first token is the current token of the cursor.
+     */
+    public JsonValue readValue(int event) {
+        return switch (event) {
             case OBJECT_BEGIN -> readObject();
             case ARRAY_BEGIN -> readArray();
-            case LITERAL_TEXT -> new JsonString((String) token.data());
-            case LITERAL_INTEGER -> new JsonInt(Integer.parseInt(((String) token.data()).trim()));
-            case LITERAL_DOUBLE -> new JsonDouble(Double.parseDouble((String) token.data()));
+            default -> readScalar(event);
+        };
+    }
+
+    private JsonValue readScalar(int event) {
+        return switch (event) {
+            case LITERAL_TEXT -> new JsonString(cursor.currentString());
+            case LITERAL_INTEGER, LITERAL_DOUBLE -> cursor.currentNumber();
             case NULL -> JsonNull.NULL;
             case TRUE -> JsonBoolean.TRUE;
             case FALSE -> JsonBoolean.FALSE;
-            default -> throw new JsonParseException("Impossible token is encountered: " + token);
+            default -> throw cursor.error("Impossible token is encountered: " + TokenType.values()[event]);
         };
     }
 
-    public JsonArray readArray() {
-        if (!tokenIterator.hasNext()) {
-            throw new JsonParseException("Cannot iterate more json tokens for reading an array.");
+    /**
+     * Reads the container whose opening token is the current token, and everything nested in it. Every round either
+     * completes a value and adds it to the container on the top, or opens a new container.
+     */
+    private JsonValue readNested(int event) {
+        final var base = depth;
+        var value = begin(event);
+        while (true) {
+            if (value != null) {
+                if (depth == base) {
+                    return value;
+                }
+                final var top = depth - 1;
+                if (objects[top] != null) {
+                    objects[top].addProperty(keys[top], value);
+                } else {
+                    arrays[top].add(value);
+                }
+            }
+            value = objects[depth - 1] != null ? nextMember() : nextElement();
         }
-        final var arr = new JsonArray();
-        while (tokenIterator.hasNext()) {
-            final var token = tokenIterator.next();
-            switch (token.typeOfToken()) {
+    }
+
+    /**
+     * @return the value of the next member, the object if it ends, or null if a container is opened for the value
+     */
+    private JsonValue nextMember() {
+        final var top = depth - 1;
+        while (true) {
+            final var event = cursor.nextEvent();
+            switch (event) {
+                case LITERAL_TEXT -> {
+                    keys[top] = cursor.currentKey();
+                    final var subEvent = cursor.nextEvent();
+                    if (subEvent != SEMICOLON) {
+                        throw cursor.error("Except SEMICOLON but encounter " + TokenType.values()[subEvent]);
+                    }
+                    return begin(cursor.nextEvent());
+                }
+                case OBJECT_END -> {
+                    final var obj = objects[top];
+                    if (top < MAX_HINTED_DEPTH) {
+                        sizeHints[top] = obj.getAsMap().size();
+                    }
+                    objects[top] = null;
+                    keys[top] = null;
+                    depth = top;
+                    return obj;
+                }
+                case COMMA -> {
+                }
+                case EOF -> throw cursor.error("Unclosed JSON Object");
+                default -> throw cursor.error("Unexcepted token in object: " + TokenType.values()[event]);
+            }
+        }
+    }
+
+    /**
+     * @return the next element, the array if it ends, or null if a container is opened for the element
+     */
+    private JsonValue nextElement() {
+        final var top = depth - 1;
+        while (true) {
+            final int event;
+            if (pending >= 0) {
+                event = pending;
+                pending = -1;
+            } else {
+                event = cursor.nextEvent();
+            }
+            switch (event) {
                 case ARRAY_END -> {
+                    final var arr = arrays[top];
+                    arrays[top] = null;
+                    depth = top;
                     return arr;
                 }
                 case COMMA -> {
                 }
-                default -> arr.add(readValue(token));
+                case EOF -> throw cursor.error("Unclosed JSON Array.");
+                default -> {
+                    return begin(event);
+                }
             }
         }
-        throw new JsonParseException("Unclosed JSON Array.");
+    }
+
+    /**
+     * @return the value which begins with the event, or null if it's a container which is opened for its children
+     */
+    private JsonValue begin(int event) {
+        switch (event) {
+            case OBJECT_BEGIN -> {
+                final var hint = depth < MAX_HINTED_DEPTH ? sizeHints[depth] : 0;
+                push(cursor.tokenStart());
+                objects[depth - 1] = new JsonObject(hint);
+                return null;
+            }
+            case ARRAY_BEGIN -> {
+                final var start = cursor.tokenStart();
+                while (true) {
+                    final var next = cursor.nextEvent();
+                    switch (next) {
+                        case ARRAY_END -> {
+                            if (depth >= maxDepth) {
+                                numbers.reset();
+                                throw tooDeep(start);
+                            }
+                            return numbers.build();
+                        }
+                        case COMMA -> {
+                        }
+                        case LITERAL_INTEGER, LITERAL_DOUBLE -> {
+                            if (!numbers.add(cursor, next)) {
+                                openArray(start, next);
+                                return null;
+                            }
+                        }
+                        case EOF -> {
+                            numbers.reset();
+                            throw cursor.error("Unclosed JSON Array.");
+                        }
+                        default -> {
+                            openArray(start, next);
+                            return null;
+                        }
+                    }
+                }
+            }
+            default -> {
+                return readScalar(event);
+            }
+        }
+    }
+
+    /**
+     * Continues an array after its leading numbers, {@code event} is the first token which is not taken by them.
+     */
+    private void openArray(int start, int event) {
+        final var arr = numbers.toJsonArray();
+        push(start);
+        arrays[depth - 1] = arr;
+        pending = event;
+    }
+
+    private void push(int start) {
+        if (depth >= maxDepth) {
+            numbers.reset();
+            throw tooDeep(start);
+        }
+        if (depth == objects.length) {
+            objects = Arrays.copyOf(objects, depth * 2);
+            arrays = Arrays.copyOf(arrays, depth * 2);
+            keys = Arrays.copyOf(keys, depth * 2);
+        }
+        depth++;
+    }
+
+    private JsonParseException tooDeep(int start) {
+        return new JsonParseException("Nesting is deeper than " + maxDepth, cursor.source(), start);
     }
 }
@@ -24,192 +24,837 @@
 
 package io.ib67.sumi.impl;
 
+import io.ib67.sumi.api.JsonCursor;
+import io.ib67.sumi.api.JsonFeeder;
+import io.ib67.sumi.api.SymbolTable;
 import io.ib67.sumi.api.exception.JsonParseException;
+import io.ib67.sumi.api.object.primitive.JsonNumber;
+import io.ib67.sumi.api.object.primitive.numbers.JsonBigDecimal;
+import io.ib67.sumi.api.object.primitive.numbers.JsonDouble;
+import io.ib67.sumi.api.object.primitive.numbers.JsonInt;
+import io.ib67.sumi.api.object.primitive.numbers.JsonLong;
+import io.ib67.sumi.api.spi.ByteScanner;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 
-public class JsonTokenReader implements Iterator<JsonToken> {
-    private static final int MAX_LENGTH_OF_TEXT_WITH_ESCAPED = 1024;
+public class JsonTokenReader implements Iterator<JsonToken>, JsonCursor {
+    private static final int MAX_MANTISSA_DIGITS = 19;
+    private static final int MAX_EXPONENT = 100_000;
+    private static final char[] EMPTY_CHARS = new char[0];
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    static final int SCAN_SCALAR = 0;
+    static final int SCAN_SWAR = 1;
+    static final int SCAN_VECTOR = 2;
+    /**
+     * Provided by the {@code sumi.vector} module, null if it's absent or {@code jdk.incubator.vector} is not resolved.
+     */
+    @Nullable
+    private static final ByteScanner VECTOR_SCANNER = loadVectorScanner();
+    /**
+     * How whitespaces and text bodies are scanned, chosen by the {@code sumi.scanner} system property
+     * ({@code scalar}, {@code swar} or {@code vector}). Vector is picked by default when the {@code sumi.vector}
+     * module can be used at runtime, otherwise SWAR.
+     */
+    static final int SCAN_MODE = detectScanMode();
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    /**
+     * Json input, by byte. It is read by absolute index and its position is never changed.
+     */
+    private ByteBuffer input;
     /**
-     * Json input, by byte.
+     * Scratch for decoding texts which aren't ASCII, it's allocated on first use.
      */
-    private final ByteBuffer input;
-    private final ByteArrayOutputStream stringBuf = new ByteArrayOutputStream(MAX_LENGTH_OF_TEXT_WITH_ESCAPED);
+    private char[] chars = EMPTY_CHARS;
 
-    private final boolean hasArray;
+    private boolean hasArray;
+    private byte[] array;
+    /**
+     * Reused to copy texts out of direct buffers.
+     */
+    private byte[] directCopy = EMPTY_BYTES;
+    private final SymbolTable symbols;
+    private int arrayOffset;
+    /**
+     * Little-endian view of the input, for loading 8 bytes at once. Only direct buffers need it.
+     */
+    private ByteBuffer words;
+    private int limit;
+    private int pos;
+    /**
+     * If more input may follow the limit. Tokens which reach the limit are reported as
+     * {@link JsonFeeder#NOT_AVAILABLE} then, and the position is moved back to their first byte.
+     */
+    private boolean partial;
+    /**
+     * How far the incomplete text at the position was scanned, relative to its opening quote.
+     */
+    private int textScanned;
+
+    // state of the current token.
+    private int event = -1;
+    private int tokenStart;
+    private int tokenEnd;
+    private boolean escaped;
+    // decoded parts of the current number.
+    private long numMantissa;
+    private int numExponent;
+    private int numDigits;
+    private boolean numNegative;
+    private boolean numTruncated;
+    /**
+     * The exponent is too large to be kept, {@link #numExponent} is only good for the double fast path then.
+     */
+    private boolean numExponentSaturated;
 
     public JsonTokenReader(ByteBuffer input) {
+        this(input, null);
+    }
+
+    public JsonTokenReader(ByteBuffer input, @Nullable SymbolTable symbols) {
+        this.symbols = symbols;
+        resume(input);
+    }
+
+    /**
+     * Binds the reader to the remaining bytes of another input, keeping the scratch buffers.
+     */
+    public void reset(ByteBuffer input) {
+        partial = false;
+        textScanned = 0;
+        resume(input);
+    }
+
+    /**
+     * Continues from the position of another buffer. An incomplete text stays resumable if the new buffer begins
+     * with it.
+     */
+    void resume(ByteBuffer input) {
         this.input = input;
         hasArray = input.hasArray();
+        array = hasArray ? input.array() : null;
+        arrayOffset = hasArray ? input.arrayOffset() : 0;
+        words = hasArray ? null : input.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        pos = input.position();
+        limit = input.limit();
+        event = -1;
+    }
+
+    /**
+     * Drops scratch buffers larger than {@code maxLength}, so a pooled reader doesn't hold on to the largest text it
+     * has ever seen.
+     */
+    void trimScratch(int maxLength) {
+        if (chars.length > maxLength) {
+            chars = EMPTY_CHARS;
+        }
+        if (directCopy.length > maxLength) {
+            directCopy = EMPTY_BYTES;
+        }
+    }
+
+    void setPartial(boolean partial) {
+        this.partial = partial;
+    }
+
+    private static int detectScanMode() {
+        final var mode = System.getProperty("sumi.scanner", "");
+        if (mode.equals("scalar")) {
+            return SCAN_SCALAR;
+        }
+        return mode.equals("swar") || VECTOR_SCANNER == null ? SCAN_SWAR : SCAN_VECTOR;
+    }
+
+    private static ByteScanner loadVectorScanner() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            final var scanner = ServiceLoader.load(ByteScanner.class, JsonTokenReader.class.getClassLoader()).findFirst().orElse(null);
+            if (scanner != null) {
+                // links the vector classes now, not in the middle of a read.
+                scanner.findQuoteOrEscape(new byte[64], 0, 64);
+            }
+            return scanner;
+        } catch (ServiceConfigurationError | LinkageError e) {
+            return null;
+        }
     }
 
     private static boolean isWhitespace(byte b) {
-        return b == ' ' || b == '\n' || b == '\r';
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
     }
 
     public JsonToken poll() {
+        return switch (nextEvent()) {
+            case OBJECT_BEGIN -> JsonToken.OBJ_BEGN;
+            case OBJECT_END -> JsonToken.OBJ_END;
+            case ARRAY_BEGIN -> JsonToken.ARR_BEGN;
+            case ARRAY_END -> JsonToken.ARR_END;
+            case COMMA -> JsonToken.COMMA;
+            case SEMICOLON -> JsonToken.SEMICOLON;
+            case LITERAL_TEXT -> new JsonToken(TokenType.LITERAL_TEXT, currentString());
+            case LITERAL_INTEGER -> new JsonToken(TokenType.LITERAL_INTEGER, rawText());
+            case LITERAL_DOUBLE -> new JsonToken(TokenType.LITERAL_DOUBLE, rawText());
+            case TRUE -> JsonToken.TRUE;
+            case FALSE -> JsonToken.FALSE;
+            case NULL -> JsonToken.NULL;
+            default -> JsonToken.EOF;
+        };
+    }
+
+    @Override
+    public int nextEvent() {
         nextNonWhitespace();
-        if (!input.hasRemaining()) {
-            // EOF
-            return JsonToken.EOF;
-        }
-        input.mark();
-        final var it = input.get();
-        return switch (it) {
-            case Constants.OBJECT_BEGIN -> JsonToken.OBJ_BEGN;
-            case Constants.OBJECT_END -> JsonToken.OBJ_END;
-            case Constants.ARRAY_BEGIN -> JsonToken.ARR_BEGN;
-            case Constants.ARRAY_END -> JsonToken.ARR_END;
-            case Constants.COMMA -> JsonToken.COMMA;
-            case Constants.SEMICOLON -> JsonToken.SEMICOLON;
+        if (pos >= limit) {
+            return event = partial ? JsonFeeder.NOT_AVAILABLE : EOF;
+        }
+        tokenStart = pos;
+        final var it = input.get(pos++);
+        tokenEnd = pos;
+        return event = switch (it) {
+            case Constants.OBJECT_BEGIN -> OBJECT_BEGIN;
+            case Constants.OBJECT_END -> OBJECT_END;
+            case Constants.ARRAY_BEGIN -> ARRAY_BEGIN;
+            case Constants.ARRAY_END -> ARRAY_END;
+            case Constants.COMMA -> COMMA;
+            case Constants.SEMICOLON -> SEMICOLON;
             case Constants.DOUBLE_QUOTE -> readString();
             case (byte) 't' -> readTrue();
             case (byte) 'f' -> readFalse();
             case (byte) 'n' -> readNull();
             default -> {
                 // check for number.
-                if ((it >= 48 && it <= 57) || it == (byte) '-') {
+                if (isDigit(it) || it == (byte) '-') {
                     yield readNumber();
                 }
-                throw new JsonParseException("Unexpected char: \"" + (char) it + "\"");
+                throw error("Unexpected char: \"" + (char) it + "\"", pos - 1);
             }
         };
     }
 
-    private JsonToken readNull() {
-        if (input.remaining() < 3) {
-            throw new JsonParseException("Cannot match token NULL because the buffer is going to end");
+    /**
+     * Moves to an absolute index, the next token will be read from there.
+     */
+    void seek(int position) {
+        pos = position;
+        event = -1;
+        textScanned = 0;
+    }
+
+    @Override
+    public int currentEvent() {
+        return event;
+    }
+
+    /**
+     * Finds the matching bracket by looking at brackets and quotes only, the skipped values are not validated.
+     */
+    @Override
+    public void skipChildren() {
+        if (event != OBJECT_BEGIN && event != ARRAY_BEGIN) {
+            return;
         }
-        if (input.get() == (byte) 'u' && input.get() == (byte) 'l' && input.get() == (byte) 'l') {
-            return JsonToken.TRUE;
+        int depth = 1;
+        var i = pos;
+        while ((i = findQuoteOrBracket(i)) < limit) {
+            final var c = input.get(i++);
+            switch (c) {
+                case Constants.DOUBLE_QUOTE -> i = skipText(i);
+                case Constants.OBJECT_BEGIN, Constants.ARRAY_BEGIN -> depth++;
+                case Constants.OBJECT_END, Constants.ARRAY_END -> {
+                    if (--depth == 0) {
+                        tokenStart = i - 1;
+                        tokenEnd = pos = i;
+                        event = c == Constants.OBJECT_END ? OBJECT_END : ARRAY_END;
+                        return;
+                    }
+                }
+            }
         }
-        throw new JsonParseException("Cannot match token \"null\"!");
+        throw error("Unexcepted EOF when skipping children", limit);
     }
 
-    private JsonToken readNumber() {
-        // move back
-        input.position(input.position() - 1);
-        // read until any end
-        final var pos = input.position();
-        boolean digit = false;
-        while (input.hasRemaining()) {
-            final var now = input.get();
-            switch (now) {
-                case (byte) 'e', (byte) 'E', (byte) '.' -> digit = true;
-                case Constants.COMMA, Constants.OBJECT_END, Constants.ARRAY_END -> {
-                    final var end = input.position() - 1;
-                    final var dst = new byte[end - pos];
-                    input.position(pos);
-                    input.get(dst, 0, end - pos);
-                    input.position(end);
-                    return new JsonToken(digit ? TokenType.LITERAL_DOUBLE : TokenType.LITERAL_INTEGER, new String(dst));
+    /**
+     * @return index of the first double quote, brace or bracket from {@code i}, or {@link #limit} if there is none
+     */
+    private int findQuoteOrBracket(int i) {
+        if (SCAN_MODE != SCAN_SCALAR) {
+            for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+                final var mask = Swar.quotesOrBrackets(getLong(i));
+                if (mask != 0) {
+                    return i + Swar.firstByte(mask);
                 }
             }
         }
-        throw new JsonParseException("Unexcepted EOF when reading number.");
+        for (; i < limit; i++) {
+            final var c = input.get(i);
+            if (c == Constants.DOUBLE_QUOTE || c == Constants.OBJECT_BEGIN || c == Constants.OBJECT_END
+                    || c == Constants.ARRAY_BEGIN || c == Constants.ARRAY_END) {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * @param i index after the opening double quote
+     * @return index after the closing double quote
+     */
+    private int skipText(int i) {
+        while ((i = findQuoteOrEscape(i)) < limit) {
+            if (input.get(i++) != Constants.ESCAPE) {
+                return i;
+            }
+            i++;
+        }
+        throw error("Unexcepted EOF, a closing double-quoting is excepted", limit);
+    }
+
+    @Override
+    public ByteBuffer source() {
+        return input;
+    }
+
+    @Override
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    @Override
+    public int tokenEnd() {
+        return tokenEnd;
+    }
+
+    @Override
+    public boolean hasEscapes() {
+        return escaped;
+    }
+
+    @Override
+    public int position() {
+        return pos;
+    }
+
+    @Override
+    public String currentString() {
+        return text(tokenStart, tokenEnd, event == LITERAL_TEXT && escaped);
+    }
+
+    @Override
+    public String currentKey() {
+        final var len = tokenEnd - tokenStart;
+        if (symbols == null || event != LITERAL_TEXT || escaped || len > SymbolTable.MAX_KEY_LENGTH) {
+            return currentString();
+        }
+        return symbols.intern(bytesOf(tokenStart, tokenEnd), bytesOffset(tokenStart), len, input, tokenStart);
+    }
+
+    /**
+     * Decodes the text between two absolute indexes, which were reported by a former token.
+     */
+    String text(int start, int end, boolean escaped) {
+        return escaped ? unescape(start, end) : rawText(start, end);
+    }
+
+    /**
+     * Compares an unescaped text between two absolute indexes with {@code s}, without decoding it when both are ASCII.
+     */
+    boolean textEquals(int start, int end, String s) {
+        final var len = s.length();
+        // a char takes at least one byte.
+        if (end - start < len) {
+            return false;
+        }
+        for (int j = 0; j < len; j++) {
+            final var c = s.charAt(j);
+            if (c >= 0x80) {
+                return rawText(start, end).equals(s);
+            }
+            if (input.get(start + j) != c) {
+                return false;
+            }
+        }
+        return end - start == len;
     }
 
-    private JsonToken readTrue() {
-        if (input.remaining() < 3) {
-            throw new JsonParseException("Cannot match token TRUE because the buffer is going to end");
+    @Override
+    public int currentInt() {
+        final var l = currentLong();
+        if (l < Integer.MIN_VALUE || l > Integer.MAX_VALUE) {
+            throw error("Number " + rawText() + " is out of int range", tokenStart);
         }
-        if (input.get() == (byte) 'r' && input.get() == (byte) 'u' && input.get() == (byte) 'e') {
-            return JsonToken.TRUE;
+        return (int) l;
+    }
+
+    @Override
+    public long currentLong() {
+        if (event != LITERAL_INTEGER) {
+            if (event == LITERAL_DOUBLE) {
+                return (long) currentDouble();
+            }
+            throw error("Current token is not a number", tokenStart);
+        }
+        if (!fitsLong()) {
+            throw error("Number " + rawText() + " is out of long range", tokenStart);
         }
-        throw new JsonParseException("Cannot match token \"true\"!");
+        return numNegative ? -numMantissa : numMantissa;
     }
 
-    // boilerplate.
-    private JsonToken readFalse() {
-        if (input.remaining() < 4) {
-            throw new JsonParseException("Cannot match token FALSE because the buffer is going to end");
-        }
-        if (input.get() == (byte) 'a' && input.get() == (byte) 'l' && input.get() == (byte) 's' && input.get() == (byte) 'e') {
-            return JsonToken.FALSE;
-        }
-        throw new JsonParseException("Cannot match token \"false\"!");
-    }
-
-    private JsonToken readString() {
-        final var pos = input.position();
-        boolean usingStringBuf = false;
-        while (input.hasRemaining()) {
-            var c = input.get();
-            if (c == Constants.ESCAPE) {
-                if (!usingStringBuf) {
-                    stringBuf.reset();
-                    // turn to mode 2 !
-                    final var current = input.position() - 1;
-                    final var len = input.position() - pos;
-                    final var buf = new byte[len];
-                    input.get(buf, 0, len);
-                    input.position(current);
-                    //baos = new ByteArrayOutputStream(Math.max(32, len + 16));
-                    stringBuf.writeBytes(buf);
-                    usingStringBuf = true;
-                }
-                // write escaping chars.
-                if (!input.hasRemaining()) {
-                    throw new JsonParseException("Unexcepted EOF at len " + input.position() + ", literal or something is excepted.");
+    @Override
+    public double currentDouble() {
+        if (event != LITERAL_DOUBLE && event != LITERAL_INTEGER) {
+            throw error("Current token is not a number", tokenStart);
+        }
+        if (!numTruncated) {
+            final var d = NumberDecoder.toDouble(numNegative, numMantissa, numExponent);
+            if (!Double.isNaN(d)) {
+                return d;
+            }
+        }
+        return Double.parseDouble(rawText());
+    }
+
+    @Override
+    public BigDecimal currentBigDecimal() {
+        if (event != LITERAL_DOUBLE && event != LITERAL_INTEGER) {
+            throw error("Current token is not a number", tokenStart);
+        }
+        if (!numTruncated && !numExponentSaturated && numMantissa >= 0) {
+            return BigDecimal.valueOf(numNegative ? -numMantissa : numMantissa, -numExponent);
+        }
+        try {
+            return new BigDecimal(rawText());
+        } catch (NumberFormatException e) {
+            // the scale of a BigDecimal is an int.
+            throw error("Number " + rawText() + " is out of range", tokenStart);
+        }
+    }
+
+    @Override
+    public JsonNumber currentNumber() {
+        if (event == LITERAL_INTEGER) {
+            if (fitsLong()) {
+                final var l = numNegative ? -numMantissa : numMantissa;
+                return l == (int) l ? new JsonInt((int) l) : new JsonLong(l);
+            }
+            return new JsonBigDecimal(currentBigDecimal());
+        }
+        final var d = currentDouble();
+        if (Double.isInfinite(d)) {
+            return new JsonBigDecimal(currentBigDecimal());
+        }
+        return new JsonDouble(d);
+    }
+
+    private boolean fitsLong() {
+        // 18 digits always fit, 19 digits fit in an unsigned long.
+        return !numTruncated && (numDigits < MAX_MANTISSA_DIGITS
+                || Long.compareUnsigned(numMantissa, numNegative ? Long.MIN_VALUE : Long.MAX_VALUE) <= 0);
+    }
+
+    private String rawText() {
+        return rawText(tokenStart, tokenEnd);
+    }
+
+    private String rawText(int start, int end) {
+        final var bytes = bytesOf(start, end);
+        final var from = bytesOffset(start);
+        final var to = from + end - start;
+        final var ascii = Utf8.skipAscii(bytes, from, to);
+        if (ascii == to) {
+            // compact strings keep latin-1 as is, so this is a plain copy.
+            return new String(bytes, from, to - from, StandardCharsets.ISO_8859_1);
+        }
+        final var chars = charsFor(to - from);
+        for (int i = from; i < ascii; i++) {
+            chars[i - from] = (char) bytes[i];
+        }
+        return new String(chars, 0, decode(bytes, ascii, to, ascii - from, start - from));
+    }
+
+    /**
+     * @return the bytes between two absolute indexes, which begin at {@link #bytesOffset(int)}. Direct buffers
+     * are copied.
+     */
+    private byte[] bytesOf(int start, int end) {
+        if (hasArray) {
+            return array;
+        }
+        final var len = end - start;
+        if (directCopy.length < len) {
+            directCopy = new byte[Math.max(len, directCopy.length * 2)];
+        }
+        input.get(start, directCopy, 0, len);
+        return directCopy;
+    }
+
+    private int bytesOffset(int start) {
+        return hasArray ? arrayOffset + start : 0;
+    }
+
+    private char[] charsFor(int len) {
+        if (chars.length < len) {
+            chars = new char[Math.max(Math.max(len, 64), chars.length * 2)];
+        }
+        return chars;
+    }
+
+    /**
+     * Decodes UTF-8 from {@code bytes} into {@link #chars} from {@code at}.
+     *
+     * @param shift the absolute index of a byte minus its index in {@code bytes}, for the error message
+     */
+    private int decode(byte[] bytes, int from, int to, int at, int shift) {
+        final var end = Utf8.decode(bytes, from, to, chars, at);
+        if (end < 0) {
+            throw error("Malformed UTF-8 sequence", ~end - shift);
+        }
+        return end;
+    }
+
+    private int readNull() {
+        if (limit - pos < 3) {
+            if (partial) {
+                return notAvailable(pos - 1);
+            }
+            throw error("Cannot match token NULL because the buffer is going to end", pos - 1);
+        }
+        if (input.get(pos) == (byte) 'u' && input.get(pos + 1) == (byte) 'l' && input.get(pos + 2) == (byte) 'l') {
+            tokenEnd = pos += 3;
+            return NULL;
+        }
+        throw error("Cannot match token \"null\"!", pos - 1);
+    }
+
+    /**
+     * Scans the number and accumulates up to 19 significant digits into {@link #numMantissa} on the way,
+     * so the common cases never need to look at the bytes again.
+     */
+    private int readNumber() {
+        // move back
+        final var start = pos - 1;
+        var i = start;
+        numNegative = input.get(i) == '-';
+        if (numNegative) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        boolean saturated = false;
+        final var intStart = i;
+        byte b;
+        while (i < limit && isDigit(b = input.get(i))) {
+            if (digits < MAX_MANTISSA_DIGITS) {
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0) {
+                    digits++;
                 }
-                c = getEscapedChar();
-            } else if (c == Constants.DOUBLE_QUOTE) {
-                // end.
-                if (!usingStringBuf) {
-                    var current = input.position() - 1;
-                    if (hasArray) {
-                        return new JsonToken(TokenType.LITERAL_TEXT, new String(input.array(), pos, current - pos));
-                    } else {
-                        final var buf = new byte[current - pos];
-                        input.get(buf, 0, current - pos);
-                        return new JsonToken(TokenType.LITERAL_TEXT, new String(buf));
+            } else {
+                truncated = true;
+                exponent++;
+            }
+            i++;
+        }
+        if (i == intStart) {
+            if (partial && i >= limit) {
+                return notAvailable(start);
+            }
+            throw error("Excepted digits in number", i);
+        }
+        boolean digit = false;
+        if (i < limit && input.get(i) == '.') {
+            digit = true;
+            final var fracStart = ++i;
+            while (i < limit && isDigit(b = input.get(i))) {
+                if (digits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (mantissa != 0) {
+                        digits++;
                     }
+                    exponent--;
                 } else {
-                    return new JsonToken(TokenType.LITERAL_TEXT, stringBuf.toString());
+                    truncated = true;
                 }
+                i++;
             }
+            if (i == fracStart) {
+                if (partial && i >= limit) {
+                    return notAvailable(start);
+                }
+                throw error("Excepted digits after decimal point", i);
+            }
+        }
+        if (i < limit && ((b = input.get(i)) == 'e' || b == 'E')) {
+            digit = true;
+            i++;
+            var negativeExponent = false;
+            if (i < limit && ((b = input.get(i)) == '+' || b == '-')) {
+                negativeExponent = b == '-';
+                i++;
+            }
+            final var expStart = i;
+            int exp = 0;
+            while (i < limit && isDigit(b = input.get(i))) {
+                if (exp < MAX_EXPONENT) {
+                    exp = exp * 10 + (b - '0');
+                } else {
+                    // far beyond the range of doubles, which only need to see it's huge.
+                    saturated = true;
+                }
+                i++;
+            }
+            if (i == expStart) {
+                if (partial && i >= limit) {
+                    return notAvailable(start);
+                }
+                throw error("Excepted digits in exponent", i);
+            }
+            exponent += negativeExponent ? -exp : exp;
+        }
+        if (partial && i >= limit) {
+            // the number may go on in the next input.
+            return notAvailable(start);
+        }
+        numMantissa = mantissa;
+        numDigits = digits;
+        numExponent = exponent;
+        numTruncated = truncated;
+        numExponentSaturated = saturated;
+        tokenEnd = pos = i;
+        return digit ? LITERAL_DOUBLE : LITERAL_INTEGER;
+    }
+
+    private int readTrue() {
+        if (limit - pos < 3) {
+            if (partial) {
+                return notAvailable(pos - 1);
+            }
+            throw error("Cannot match token TRUE because the buffer is going to end", pos - 1);
+        }
+        if (input.get(pos) == (byte) 'r' && input.get(pos + 1) == (byte) 'u' && input.get(pos + 2) == (byte) 'e') {
+            tokenEnd = pos += 3;
+            return TRUE;
+        }
+        throw error("Cannot match token \"true\"!", pos - 1);
+    }
+
+    // boilerplate.
+    private int readFalse() {
+        if (limit - pos < 4) {
+            if (partial) {
+                return notAvailable(pos - 1);
+            }
+            throw error("Cannot match token FALSE because the buffer is going to end", pos - 1);
+        }
+        if (input.get(pos) == (byte) 'a' && input.get(pos + 1) == (byte) 'l'
+                && input.get(pos + 2) == (byte) 's' && input.get(pos + 3) == (byte) 'e') {
+            tokenEnd = pos += 4;
+            return FALSE;
+        }
+        throw error("Cannot match token \"false\"!", pos - 1);
+    }
+
+    /**
+     * Only finds the bounds of the text. Decoding is deferred to {@link #currentString()}.
+     */
+    private int readString() {
+        tokenStart = pos;
+        var i = pos;
+        if (textScanned != 0) {
+            // resumed, the escapes found so far are remembered.
+            i = pos - 1 + textScanned;
+            textScanned = 0;
+        } else {
+            escaped = false;
+        }
+        int found;
+        while ((found = findQuoteOrEscape(i)) < limit) {
+            i = found;
+            if (input.get(i++) == Constants.ESCAPE) {
+                escaped = true;
+                // the escaped char can never close the text.
+                i++;
+            } else {
+                tokenEnd = i - 1;
+                pos = i;
+                return LITERAL_TEXT;
+            }
+        }
+        if (partial) {
+            final var quote = pos - 1;
+            // i passes the limit when it ends with a backslash, the escaped char is skipped when resumed.
+            textScanned = Math.max(i, limit) - quote;
+            return notAvailable(quote);
+        }
+        throw error("Unexcepted EOF, a closing double-quoting is excepted", pos - 1);
+    }
+
+    /**
+     * The exception locates its offset in the input lazily, so throwing stays cheap.
+     */
+    private JsonParseException error(String message, int at) {
+        return new JsonParseException(message, input, at);
+    }
+
+    private int notAvailable(int tokenStart) {
+        pos = tokenStart;
+        return JsonFeeder.NOT_AVAILABLE;
+    }
+
+    /**
+     * @return index of the first double quote or backslash from {@code i}, or {@link #limit} if there is none
+     */
+    private int findQuoteOrEscape(int i) {
+        if (SCAN_MODE != SCAN_SCALAR && i + Long.BYTES <= limit) {
+            // short texts end within the first word.
+            final var mask = Swar.quotesOrEscapes(getLong(i));
+            if (mask != 0) {
+                return i + Swar.firstByte(mask);
+            }
+            i += Long.BYTES;
+        }
+        if (SCAN_MODE == SCAN_VECTOR) {
+            i = hasArray
+                    ? VECTOR_SCANNER.findQuoteOrEscape(array, arrayOffset + i, arrayOffset + limit) - arrayOffset
+                    : VECTOR_SCANNER.findQuoteOrEscape(input, i, limit);
+        } else if (SCAN_MODE != SCAN_SCALAR) {
+            for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+                final var mask = Swar.quotesOrEscapes(getLong(i));
+                if (mask != 0) {
+                    return i + Swar.firstByte(mask);
+                }
+            }
+        }
+        for (; i < limit; i++) {
+            final var c = input.get(i);
+            if (c == Constants.DOUBLE_QUOTE || c == Constants.ESCAPE) {
+                return i;
+            }
+        }
+        return limit;
+    }
 
-            if (usingStringBuf) { // mode 2
-                stringBuf.write(c);
-            } // or continue.
+    /**
+     * Decodes the runs between escapes as UTF-8, and escapes into UTF-16 units, so a surrogate pair written as two
+     * {@code \\u} escapes is joined naturally.
+     */
+    private String unescape(int start, int end) {
+        final var bytes = bytesOf(start, end);
+        final var shift = start - bytesOffset(start);
+        final var to = end - shift;
+        final var chars = charsFor(end - start);
+        var i = start - shift;
+        var d = 0;
+        while (i < to) {
+            var run = i;
+            while (run < to && bytes[run] != Constants.ESCAPE) {
+                run++;
+            }
+            d = decode(bytes, i, run, d, shift);
+            if (run == to) {
+                break;
+            }
+            i = run + 1;
+            if (i >= to) {
+                throw error("Unexcepted EOF, literal or something is excepted", i + shift);
+            }
+            final var c = bytes[i++];
+            if (c == 'u') {
+                if (i + 4 > to) {
+                    throw error("Unexcepted EOF, 4 hex digits are excepted", i + shift);
+                }
+                chars[d++] = (char) (hexDigit(bytes[i], i + shift) << 12 | hexDigit(bytes[i + 1], i + 1 + shift) << 8
+                        | hexDigit(bytes[i + 2], i + 2 + shift) << 4 | hexDigit(bytes[i + 3], i + 3 + shift));
+                i += 4;
+            } else {
+                chars[d++] = getEscapedChar(c, i - 1 + shift);
+            }
         }
-        throw new JsonParseException("Unexcepted EOF at len " + input.position() + ", a closing double-quoting is excepted.");
+        return new String(chars, 0, d);
     }
 
-    private byte getEscapedChar() {
-        return (byte) switch ((char) input.get()) {
-            case '\\' -> Constants.ESCAPE;
+    private char getEscapedChar(byte c, int at) {
+        return switch ((char) c) {
+            case '\\' -> '\\';
+            case '/' -> '/';
             case 'n' -> '\n';
             case 'b' -> '\b';
             case 't' -> '\t';
             case 'r' -> '\r';
             case 'f' -> '\f';
             case '"' -> '"';
-            default -> throw new IllegalStateException("Unexpected value: " + (char) input.get());
+            default -> throw error("Unexcepted escaped char \"" + (char) c + "\"", at);
         };
     }
 
+    private int hexDigit(byte c, int at) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        // lower case.
+        final var l = c | 0x20;
+        if (l >= 'a' && l <= 'f') {
+            return l - 'a' + 10;
+        }
+        throw error("Unexcepted hex digit \"" + (char) c + "\"", at);
+    }
+
     private void nextNonWhitespace() {
-        while (input.hasRemaining()) { // 0 , 1 , 2
-            // { , } , \n
-            final var a = input.get();
-            if (!isWhitespace(a)) {
-                input.position(input.position() - 1);
+        var i = pos;
+        // most runs are a line break and some indentation, which are cheaper to test one by one.
+        final var shortRun = Math.min(limit, i + Long.BYTES);
+        for (; i < shortRun; i++) {
+            if (!isWhitespace(input.get(i))) {
+                pos = i;
                 return;
             }
-            if (!input.hasRemaining()) {
-                // this is end.
-                return;
+        }
+        if (SCAN_MODE == SCAN_VECTOR) {
+            i = hasArray
+                    ? VECTOR_SCANNER.skipWhitespace(array, arrayOffset + i, arrayOffset + limit) - arrayOffset
+                    : VECTOR_SCANNER.skipWhitespace(input, i, limit);
+        } else if (SCAN_MODE != SCAN_SCALAR) {
+            for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+                final var mask = ~Swar.whitespaces(getLong(i)) & Swar.HIGHS;
+                if (mask != 0) {
+                    pos = i + Swar.firstByte(mask);
+                    return;
+                }
             }
         }
-        input.position(input.position() - 1);
+        while (i < limit && isWhitespace(input.get(i))) {
+            i++;
+        }
+        pos = i;
+    }
+
+    /**
+     * Loads 8 bytes at {@code i} as a little-endian long.
+     */
+    private long getLong(int i) {
+        return hasArray ? (long) LONG_VIEW.get(array, arrayOffset + i) : words.getLong(i);
     }
 
     @Override
     public boolean hasNext() {
-        return input.hasRemaining();
+        nextNonWhitespace();
+        return pos < limit;
     }
 
     @Override
@@ -0,0 +1,390 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import io.ib67.sumi.api.JsonLimits;
+import io.ib67.sumi.api.JsonValidation;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Checks the input against the grammar of RFC 8259 without producing tokens. The nesting is kept in an explicit
+ * stack, so deep inputs are reported by the limits instead of overflowing the thread stack, and nothing is allocated
+ * unless the input is invalid or nests deeper than 64 levels.
+ * <p>
+ * Unlike the readers, separators are strict, a single value must take the whole input, texts must not contain raw
+ * control chars and must be well-formed UTF-8.
+ */
+final class JsonValidator {
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final int FAILED = -1;
+    private final ByteBuffer input;
+    private final boolean hasArray;
+    private final byte[] array;
+    private final int arrayOffset;
+    private final ByteBuffer words;
+    private final int limit;
+    private final JsonLimits limits;
+    /**
+     * One bit for every open container, set for objects.
+     */
+    private long[] objects = new long[1];
+    private int errorOffset;
+    private String error;
+
+    private JsonValidator(ByteBuffer input, JsonLimits limits) {
+        this.input = input;
+        this.limits = limits;
+        limit = input.limit();
+        hasArray = input.hasArray();
+        array = hasArray ? input.array() : null;
+        arrayOffset = hasArray ? input.arrayOffset() : 0;
+        words = hasArray ? null : input.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Validates the remaining bytes of the buffer. The position of the buffer is left untouched.
+     */
+    static JsonValidation validate(ByteBuffer input, JsonLimits limits) {
+        return new JsonValidator(input, limits).run(input.position());
+    }
+
+    private JsonValidation run(int start) {
+        if (limit - start > limits.maxBytes()) {
+            return failure(start + limits.maxBytes(), "Input is longer than " + limits.maxBytes() + " bytes");
+        }
+        var i = skipWhitespace(start);
+        var depth = 0;
+        while (true) {
+            // i is at the beginning of a value.
+            if (i >= limit) {
+                return failure(i, "Unexcepted EOF, a value is excepted");
+            }
+            final var c = input.get(i);
+            switch (c) {
+                case Constants.OBJECT_BEGIN, Constants.ARRAY_BEGIN -> {
+                    if (depth >= limits.maxDepth()) {
+                        return failure(i, "Nesting is deeper than " + limits.maxDepth());
+                    }
+                    final var isObject = c == Constants.OBJECT_BEGIN;
+                    push(depth++, isObject);
+                    i = skipWhitespace(i + 1);
+                    if (i < limit && input.get(i) == (isObject ? Constants.OBJECT_END : Constants.ARRAY_END)) {
+                        depth--;
+                        i++;
+                    } else if (isObject && (i = member(i)) == FAILED) {
+                        return failure();
+                    } else {
+                        continue;
+                    }
+                }
+                case Constants.DOUBLE_QUOTE -> i = text(i);
+                case (byte) 't' -> i = literal(i, "true");
+                case (byte) 'f' -> i = literal(i, "false");
+                case (byte) 'n' -> i = literal(i, "null");
+                default -> i = c == '-' || isDigit(c) ? number(i) : fail(i, "Unexpected char: \"" + (char) c + "\"");
+            }
+            // i is after a value, close the containers which end here.
+            while (i != FAILED) {
+                i = skipWhitespace(i);
+                if (depth == 0) {
+                    return i == limit ? JsonValidation.VALID : failure(i, "Unexcepted content after the value");
+                }
+                if (i >= limit) {
+                    return failure(i, "Unexcepted EOF, the container is not closed");
+                }
+                final var isObject = isObject(depth - 1);
+                final var s = input.get(i);
+                if (s == Constants.COMMA) {
+                    i = skipWhitespace(i + 1);
+                    if (isObject) {
+                        i = member(i);
+                    }
+                    break;
+                }
+                if (s != (isObject ? Constants.OBJECT_END : Constants.ARRAY_END)) {
+                    return failure(i, "Except COMMA or " + (isObject ? "OBJECT_END" : "ARRAY_END") + " but encounter \"" + (char) s + "\"");
+                }
+                depth--;
+                i++;
+            }
+            if (i == FAILED) {
+                return failure();
+            }
+        }
+    }
+
+    /**
+     * @param i index of the key of a member
+     * @return index of the value of the member
+     */
+    private int member(int i) {
+        if (i >= limit || input.get(i) != Constants.DOUBLE_QUOTE) {
+            return fail(i, "Except a key but encounter " + (i >= limit ? "EOF" : "\"" + (char) input.get(i) + "\""));
+        }
+        if ((i = text(i)) == FAILED) {
+            return FAILED;
+        }
+        i = skipWhitespace(i);
+        if (i >= limit || input.get(i) != Constants.SEMICOLON) {
+            return fail(i, "Except SEMICOLON after the key");
+        }
+        return skipWhitespace(i + 1);
+    }
+
+    /**
+     * @param quote index of the opening double quote
+     * @return index after the closing double quote
+     */
+    private int text(int quote) {
+        var i = quote + 1;
+        while (true) {
+            i = findSpecial(i);
+            if (i >= limit) {
+                return fail(quote, "Unexcepted EOF, a closing double-quoting is excepted");
+            }
+            final var c = input.get(i);
+            if (c == Constants.DOUBLE_QUOTE) {
+                if (i - quote - 1 > limits.maxStringLength()) {
+                    return fail(quote, "Text is longer than " + limits.maxStringLength() + " bytes");
+                }
+                return i + 1;
+            } else if (c == Constants.ESCAPE) {
+                i = escape(i);
+            } else if (c >= 0) {
+                return fail(i, "Unexcepted control char 0x" + Integer.toHexString(c) + " in text");
+            } else {
+                i = utf8(i);
+            }
+            if (i == FAILED) {
+                return FAILED;
+            }
+        }
+    }
+
+    /**
+     * @return index of the first double quote, backslash, control char or non-ASCII byte from {@code i}, or
+     * {@link #limit}
+     */
+    private int findSpecial(int i) {
+        if (JsonTokenReader.SCAN_MODE != JsonTokenReader.SCAN_SCALAR) {
+            for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+                final var mask = Swar.textSpecials(getLong(i));
+                if (mask != 0) {
+                    return i + Swar.firstByte(mask);
+                }
+            }
+        }
+        for (; i < limit; i++) {
+            final var c = input.get(i);
+            if (c == Constants.DOUBLE_QUOTE || c == Constants.ESCAPE || c < 0x20) {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * @param i index of the backslash
+     */
+    private int escape(int i) {
+        if (i + 1 >= limit) {
+            return fail(i, "Unexcepted EOF, an escaped char is excepted");
+        }
+        final var c = input.get(i + 1);
+        return switch (c) {
+            case '"', '\\', '/', 'b', 'f', 'n', 'r', 't' -> i + 2;
+            case 'u' -> {
+                for (var h = i + 2; h < i + 6; h++) {
+                    if (h >= limit) {
+                        yield fail(h, "Unexcepted EOF, 4 hex digits are excepted");
+                    }
+                    if (!isHexDigit(input.get(h))) {
+                        yield fail(h, "Unexcepted hex digit \"" + (char) input.get(h) + "\"");
+                    }
+                }
+                yield i + 6;
+            }
+            default -> fail(i + 1, "Unexcepted escaped char \"" + (char) c + "\"");
+        };
+    }
+
+    /**
+     * Checks a multibyte sequence like {@link Utf8#decode(byte[], int, int, char[], int)}.
+     *
+     * @param i index of the leading byte
+     */
+    private int utf8(int i) {
+        final int b = input.get(i);
+        final int length;
+        final int min;
+        if ((b & 0xE0) == 0xC0) {
+            length = 2;
+            min = 0x80;
+        } else if ((b & 0xF0) == 0xE0) {
+            length = 3;
+            min = 0x800;
+        } else if ((b & 0xF8) == 0xF0) {
+            length = 4;
+            min = Character.MIN_SUPPLEMENTARY_CODE_POINT;
+        } else {
+            return fail(i, "Malformed UTF-8");
+        }
+        if (i + length > limit) {
+            return fail(i, "Malformed UTF-8");
+        }
+        var cp = b & (0x7F >> length);
+        for (var k = 1; k < length; k++) {
+            final var next = input.get(i + k);
+            if ((next & 0xC0) != 0x80) {
+                return fail(i, "Malformed UTF-8");
+            }
+            cp = cp << 6 | next & 0x3F;
+        }
+        if (cp < min || cp > Character.MAX_CODE_POINT || cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE) {
+            return fail(i, "Malformed UTF-8");
+        }
+        return i + length;
+    }
+
+    private int number(int i) {
+        if (input.get(i) == '-') {
+            i++;
+        }
+        if (i < limit && input.get(i) == '0') {
+            i++;
+        } else if ((i = digits(i)) == FAILED) {
+            return FAILED;
+        }
+        if (i < limit && input.get(i) == '.' && (i = digits(i + 1)) == FAILED) {
+            return FAILED;
+        }
+        if (i < limit && (input.get(i) | 0x20) == 'e') {
+            i++;
+            if (i < limit && (input.get(i) == '+' || input.get(i) == '-')) {
+                i++;
+            }
+            return digits(i);
+        }
+        return i;
+    }
+
+    /**
+     * @return index after at least one digit
+     */
+    private int digits(int i) {
+        final var start = i;
+        while (i < limit && isDigit(input.get(i))) {
+            i++;
+        }
+        return i == start ? fail(i, "Excepted digits in number") : i;
+    }
+
+    private int literal(int i, String literal) {
+        final var len = literal.length();
+        if (limit - i < len) {
+            return fail(i, "Cannot match token \"" + literal + "\" because the buffer is going to end");
+        }
+        for (var k = 1; k < len; k++) {
+            if (input.get(i + k) != literal.charAt(k)) {
+                return fail(i, "Cannot match token \"" + literal + "\"");
+            }
+        }
+        return i + len;
+    }
+
+    private int skipWhitespace(int i) {
+        // most runs are a line break and some indentation, which are cheaper to test one by one.
+        final var shortRun = Math.min(limit, i + Long.BYTES);
+        for (; i < shortRun; i++) {
+            if (!isWhitespace(input.get(i))) {
+                return i;
+            }
+        }
+        if (JsonTokenReader.SCAN_MODE != JsonTokenReader.SCAN_SCALAR) {
+            for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+                final var mask = ~Swar.whitespaces(getLong(i)) & Swar.HIGHS;
+                if (mask != 0) {
+                    return i + Swar.firstByte(mask);
+                }
+            }
+        }
+        while (i < limit && isWhitespace(input.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private void push(int depth, boolean isObject) {
+        final var word = depth >>> 6;
+        if (word == objects.length) {
+            objects = Arrays.copyOf(objects, word * 2);
+        }
+        if (isObject) {
+            objects[word] |= 1L << depth;
+        } else {
+            objects[word] &= ~(1L << depth);
+        }
+    }
+
+    private boolean isObject(int depth) {
+        return (objects[depth >>> 6] & 1L << depth) != 0;
+    }
+
+    private long getLong(int i) {
+        return hasArray ? (long) LONG_VIEW.get(array, arrayOffset + i) : words.getLong(i);
+    }
+
+    private int fail(int at, String message) {
+        errorOffset = at;
+        error = message;
+        return FAILED;
+    }
+
+    private JsonValidation failure() {
+        return new JsonValidation(errorOffset, error);
+    }
+
+    private static JsonValidation failure(int at, String message) {
+        return new JsonValidation(at, message);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isHexDigit(byte b) {
+        final var l = b | 0x20;
+        return isDigit(b) || l >= 'a' && l <= 'f';
+    }
+}
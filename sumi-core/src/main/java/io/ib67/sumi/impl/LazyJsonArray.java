@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import io.ib67.sumi.api.object.JsonValue;
+
+/**
+ * A lazy array which indexes its elements on the first access. Elements are decoded by {@link #get(int)} one at a
+ * time, everything else decodes the whole array first.
+ */
+public final class LazyJsonArray extends DeferredJsonArray {
+    private LazyJsonReader reader;
+    private final int start;
+    // count of containers around the children, this one included.
+    private final int depth;
+    private int[] offsets;
+    private JsonValue[] decoded;
+
+    LazyJsonArray(LazyJsonReader reader, int start, int depth) {
+        this.reader = reader;
+        this.start = start;
+        this.depth = depth;
+    }
+
+    @Override
+    protected int deferredSize() {
+        return offsets().length;
+    }
+
+    @Override
+    protected JsonValue deferredGet(int index) {
+        final var offsets = offsets();
+        if (decoded == null) {
+            decoded = new JsonValue[offsets.length];
+        }
+        var value = decoded[index];
+        if (value == null) {
+            value = decoded[index] = reader.readAt(offsets[index], depth);
+        }
+        return value;
+    }
+
+    @Override
+    protected void release() {
+        reader = null;
+        offsets = null;
+        decoded = null;
+    }
+
+    private int[] offsets() {
+        if (offsets == null) {
+            offsets = reader.indexArray(start);
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import io.ib67.sumi.api.object.JsonObject;
+import io.ib67.sumi.api.object.JsonValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An object which only knows where it begins in the source. Its members are indexed on the first lookup and each
+ * value is decoded when it is looked up. Anything that needs the whole map, like mutations, {@link #getAsMap()} and
+ * {@link #toJSON()}, decodes the rest of the members first.
+ */
+public final class LazyJsonObject extends JsonObject {
+    /**
+     * Null after all members are decoded into {@link #values}.
+     */
+    private LazyJsonReader reader;
+    private final int start;
+    // count of containers around the children, this one included.
+    private final int depth;
+    private int[] entries;
+
+    LazyJsonObject(LazyJsonReader reader, int start, int depth) {
+        this.reader = reader;
+        this.start = start;
+        this.depth = depth;
+    }
+
+    @Override
+    public JsonValue getProperty(String key) {
+        final var cached = values.get(key);
+        if (cached != null || reader == null) {
+            return cached;
+        }
+        final var entries = entries();
+        final var tokens = reader.tokens();
+        // the last one wins when a key is duplicated.
+        for (int i = entries.length - 3; i >= 0; i -= 3) {
+            final var keyEnd = entries[i + 1];
+            final var matches = keyEnd < 0
+                    ? tokens.text(entries[i], ~keyEnd, true).equals(key)
+                    : tokens.textEquals(entries[i], keyEnd, key);
+            if (matches) {
+                final var value = reader.readAt(entries[i + 2], depth);
+                values.put(key, value);
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public JsonObject addProperty(String key, JsonValue value) {
+        materialize();
+        return super.addProperty(key, value);
+    }
+
+    @Override
+    public JsonObject removeProperty(String key) {
+        materialize();
+        return super.removeProperty(key);
+    }
+
+    @Override
+    public String toJSON() {
+        materialize();
+        return super.toJSON();
+    }
+
+    @Override
+    public Map<String, JsonValue> getAsMap() {
+        materialize();
+        return super.getAsMap();
+    }
+
+    private int[] entries() {
+        if (entries == null) {
+            entries = reader.indexObject(start);
+        }
+        return entries;
+    }
+
+    private void materialize() {
+        if (reader == null) {
+            return;
+        }
+        final var entries = entries();
+        final var tokens = reader.tokens();
+        // members are put in the order of the input, reusing the ones which are decoded already.
+        final var decoded = values.isEmpty() ? Map.<String, JsonValue>of() : new HashMap<>(values);
+        values.clear();
+        for (int i = 0; i < entries.length; i += 3) {
+            final var keyEnd = entries[i + 1];
+            final var key = tokens.text(entries[i], keyEnd < 0 ? ~keyEnd : keyEnd, keyEnd < 0);
+            final var value = decoded.get(key);
+            values.put(key, value != null ? value : reader.readAt(entries[i + 2], depth));
+        }
+        reader = null;
+        this.entries = null;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import io.ib67.sumi.api.exception.JsonParseException;
+import io.ib67.sumi.api.object.JsonObject;
+import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.api.object.primitive.JsonArray;
+
+import java.util.Arrays;
+
+import static io.ib67.sumi.api.JsonCursor.*;
+
+/**
+ * Reads scalars as usual but returns containers which only remember where they begin. Lazy containers of the same
+ * document share one reader and seek it before every read.
+ */
+final class LazyJsonReader extends JsonReader {
+    private final JsonTokenReader tokens;
+    private final int maxDepth;
+    // count of containers around the value which is read next.
+    private int depth;
+
+    LazyJsonReader(JsonTokenReader tokens, int maxDepth) {
+        super(tokens, maxDepth);
+        this.tokens = tokens;
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public JsonObject readObject() {
+        checkDepth();
+        return new LazyJsonObject(this, tokens.position(), depth + 1);
+    }
+
+    @Override
+    public JsonArray readArray() {
+        checkDepth();
+        return new LazyJsonArray(this, tokens.position(), depth + 1);
+    }
+
+    private void checkDepth() {
+        if (depth >= maxDepth) {
+            throw new JsonParseException("Nesting is deeper than " + maxDepth, tokens.source(), tokens.tokenStart());
+        }
+    }
+
+    JsonTokenReader tokens() {
+        return tokens;
+    }
+
+    /**
+     * Reads the value whose first byte is at {@code offset}.
+     *
+     * @param depth count of containers around the value
+     */
+    JsonValue readAt(int offset, int depth) {
+        tokens.seek(offset);
+        this.depth = depth;
+        return readValue(tokens.nextEvent());
+    }
+
+    /**
+     * Indexes the members of an object, {@code start} is the index after its opening brace.
+     *
+     * @return triples of key start, key end (inverted when the key has escapes) and value offset
+     */
+    int[] indexObject(int start) {
+        tokens.seek(start);
+        var entries = new int[24];
+        var len = 0;
+        while (true) {
+            final var event = tokens.nextEvent();
+            switch (event) {
+                case LITERAL_TEXT -> {
+                    final var keyStart = tokens.tokenStart();
+                    final var keyEnd = tokens.hasEscapes() ? ~tokens.tokenEnd() : tokens.tokenEnd();
+                    final var subEvent = tokens.nextEvent();
+                    if (subEvent != SEMICOLON) {
+                        throw tokens.error("Except SEMICOLON but encounter " + TokenType.values()[subEvent]);
+                    }
+                    final var valueStart = skipValue();
+                    if (len == entries.length) {
+                        entries = Arrays.copyOf(entries, len * 2);
+                    }
+                    entries[len++] = keyStart;
+                    entries[len++] = keyEnd;
+                    entries[len++] = valueStart;
+                }
+                case OBJECT_END -> {
+                    return Arrays.copyOf(entries, len);
+                }
+                case COMMA -> {
+                }
+                case EOF -> throw tokens.error("Unclosed JSON Object");
+                default -> throw tokens.error("Unexcepted token in object: " + TokenType.values()[event]);
+            }
+        }
+    }
+
+    /**
+     * Indexes the elements of an array, {@code start} is the index after its opening bracket.
+     *
+     * @return offsets of the elements
+     */
+    int[] indexArray(int start) {
+        tokens.seek(start);
+        var offsets = new int[16];
+        var len = 0;
+        while (true) {
+            final var event = tokens.nextEvent();
+            switch (event) {
+                case ARRAY_END -> {
+                    return Arrays.copyOf(offsets, len);
+                }
+                case COMMA -> {
+                }
+                case EOF -> throw tokens.error("Unclosed JSON Array.");
+                default -> {
+                    if (len == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, len * 2);
+                    }
+                    offsets[len++] = valueStart(event);
+                    tokens.skipChildren();
+                }
+            }
+        }
+    }
+
+    private int skipValue() {
+        final var event = tokens.nextEvent();
+        if (event == EOF) {
+            throw tokens.error("TokenStream is ended");
+        }
+        final var start = valueStart(event);
+        tokens.skipChildren();
+        return start;
+    }
+
+    private int valueStart(int event) {
+        return switch (event) {
+            // the range of a text excludes its quotes.
+            case LITERAL_TEXT -> tokens.tokenStart() - 1;
+            case OBJECT_BEGIN, ARRAY_BEGIN, LITERAL_INTEGER, LITERAL_DOUBLE, NULL, TRUE, FALSE -> tokens.tokenStart();
+            default -> throw tokens.error("Impossible token is encountered: " + TokenType.values()[event]);
+        };
+    }
+}
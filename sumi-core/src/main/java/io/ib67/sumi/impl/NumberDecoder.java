@@ -0,0 +1,169 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import java.math.BigInteger;
+
+/**
+ * Converts a decimal significand and exponent into a correctly rounded double.
+ * <p>
+ * Uses the Clinger fast path when both parts are exactly representable, otherwise the Eisel-Lemire algorithm
+ * (as found in fast_float). Returns {@link Double#NaN} when the result cannot be decided cheaply, callers should
+ * then fall back to {@link Double#parseDouble(String)}.
+ */
+final class NumberDecoder {
+    private static final int SMALLEST_POWER_OF_TEN = -342;
+    private static final int LARGEST_POWER_OF_TEN = 308;
+    private static final int MANTISSA_EXPLICIT_BITS = 52;
+    private static final int MINIMUM_EXPONENT = -1023;
+    private static final int INFINITE_POWER = 0x7FF;
+    private static final long SIGN_BIT = 0x8000000000000000L;
+
+    private static final double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * 128-bit approximations of 5^q, stored as (high, low) pairs for q from -342 to 308.
+     */
+    private static final long[] POWERS_OF_FIVE = new long[(LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1) * 2];
+
+    static {
+        final var five = BigInteger.valueOf(5);
+        final var two128 = BigInteger.ONE.shiftLeft(128);
+        final var mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int q = SMALLEST_POWER_OF_TEN; q <= LARGEST_POWER_OF_TEN; q++) {
+            BigInteger c;
+            if (q >= 0) {
+                // move the most significant bit to bit 127, truncating.
+                final var power5 = five.pow(q);
+                final var shift = 128 - power5.bitLength();
+                c = shift >= 0 ? power5.shiftLeft(shift) : power5.shiftRight(-shift);
+            } else {
+                final var power5 = five.pow(-q);
+                final var z = power5.bitLength();
+                final var b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                while (c.compareTo(two128) >= 0) {
+                    c = c.shiftRight(1);
+                }
+            }
+            final var index = 2 * (q - SMALLEST_POWER_OF_TEN);
+            POWERS_OF_FIVE[index] = c.shiftRight(64).longValue();
+            POWERS_OF_FIVE[index + 1] = c.and(mask64).longValue();
+        }
+    }
+
+    private NumberDecoder() {
+    }
+
+    /**
+     * @param negative sign of the number
+     * @param w        the decimal significand, at most 19 digits, treated as unsigned
+     * @param q        the decimal exponent
+     * @return the nearest double of {@code w * 10^q}, or NaN if undecidable
+     */
+    static double toDouble(boolean negative, long w, int q) {
+        if (q >= -22 && q <= 22 && w >= 0 && w <= (1L << 53)) {
+            final var d = (double) w;
+            final var result = q < 0 ? d / EXACT_POWERS_OF_TEN[-q] : d * EXACT_POWERS_OF_TEN[q];
+            return negative ? -result : result;
+        }
+        if (w == 0 || q < SMALLEST_POWER_OF_TEN) {
+            return negative ? -0.0d : 0.0d;
+        }
+        if (q > LARGEST_POWER_OF_TEN) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        final var lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+
+        // compute the product approximation with 55 bits of precision.
+        final var index = 2 * (q - SMALLEST_POWER_OF_TEN);
+        var high = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index]);
+        var low = w * POWERS_OF_FIVE[index];
+        if ((high & 0x1FF) == 0x1FF) {
+            final var secondHigh = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+            low += secondHigh;
+            if (Long.compareUnsigned(secondHigh, low) > 0) {
+                high++;
+            }
+            if (low == -1L && (q < -27 || q > 55)) {
+                // too close to a halfway point to tell.
+                return Double.NaN;
+            }
+        }
+
+        final var upperBit = (int) (high >>> 63);
+        final var shift = upperBit + 64 - MANTISSA_EXPLICIT_BITS - 3;
+        var mantissa = high >>> shift;
+        var power2 = power(q) + upperBit - lz - MINIMUM_EXPONENT;
+        if (power2 <= 0) {
+            // subnormal
+            if (-power2 + 1 >= 64) {
+                return negative ? -0.0d : 0.0d;
+            }
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            power2 = mantissa < (1L << MANTISSA_EXPLICIT_BITS) ? 0 : 1;
+            return assemble(negative, mantissa, power2);
+        }
+        // usually we round up, but exactly halfway values with an even mantissa round down.
+        if (Long.compareUnsigned(low, 1) <= 0 && q >= -4 && q <= 23 && (mantissa & 3) == 1) {
+            if ((mantissa << shift) == high) {
+                mantissa &= ~1L;
+            }
+        }
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (2L << MANTISSA_EXPLICIT_BITS)) {
+            mantissa = 1L << MANTISSA_EXPLICIT_BITS;
+            power2++;
+        }
+        mantissa &= ~(1L << MANTISSA_EXPLICIT_BITS);
+        if (power2 >= INFINITE_POWER) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        return assemble(negative, mantissa, power2);
+    }
+
+    private static double assemble(boolean negative, long mantissa, int power2) {
+        final var bits = mantissa | ((long) power2 << MANTISSA_EXPLICIT_BITS);
+        return Double.longBitsToDouble(negative ? bits | SIGN_BIT : bits);
+    }
+
+    /**
+     * floor(log2(5^q)) + q + 63, for q in [-342, 308].
+     */
+    private static int power(int q) {
+        return (((152170 + 65536) * q) >> 16) + 63;
+    }
+
+    private static long unsignedMultiplyHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import io.ib67.sumi.api.JsonCursor;
+import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.api.object.primitive.JsonArray;
+import io.ib67.sumi.api.object.primitive.numbers.JsonBigDecimal;
+import io.ib67.sumi.api.object.primitive.numbers.JsonDouble;
+import io.ib67.sumi.api.object.primitive.numbers.JsonInt;
+import io.ib67.sumi.api.object.primitive.numbers.JsonLong;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+import static io.ib67.sumi.api.JsonCursor.LITERAL_DOUBLE;
+import static io.ib67.sumi.api.JsonCursor.LITERAL_INTEGER;
+
+/**
+ * An array whose elements are all integers in long range, or all decimals, kept in an {@code int[]}, a
+ * {@code long[]} or a {@code double[]}. {@link #get(int)} boxes an element on every call, in the same {@link io.ib67.sumi.api.object.primitive.JsonNumber}
+ * the tree reader would create for it.
+ */
+public final class NumericJsonArray extends DeferredJsonArray {
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+
+    private NumericJsonArray(int[] ints, long[] longs, double[] doubles) {
+        this.ints = ints;
+        this.longs = longs;
+        this.doubles = doubles;
+    }
+
+    @Override
+    protected int deferredSize() {
+        return ints != null ? ints.length : longs != null ? longs.length : doubles.length;
+    }
+
+    @Override
+    protected JsonValue deferredGet(int index) {
+        if (ints != null) {
+            return new JsonInt(ints[index]);
+        }
+        if (longs != null) {
+            final var l = longs[index];
+            return l == (int) l ? new JsonInt((int) l) : new JsonLong(l);
+        }
+        return new JsonDouble(doubles[index]);
+    }
+
+    @Override
+    protected void release() {
+        ints = null;
+        longs = null;
+        doubles = null;
+    }
+
+    /**
+     * @return the backing array, or null if the array holds other numbers or is materialized
+     */
+    int[] ints() {
+        return ints;
+    }
+
+    /**
+     * @return the backing array, or null if the array holds other numbers or is materialized
+     */
+    long[] longs() {
+        return longs;
+    }
+
+    /**
+     * @return the backing array, or null if the array holds other numbers or is materialized
+     */
+    double[] doubles() {
+        return doubles;
+    }
+
+    @Override
+    public double[] toDoubleArray() {
+        if (doubles != null) {
+            return doubles.clone();
+        }
+        if (ints != null) {
+            return Arrays.stream(ints).asDoubleStream().toArray();
+        }
+        if (longs != null) {
+            final var result = new double[longs.length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = longs[i];
+            }
+            return result;
+        }
+        return super.toDoubleArray();
+    }
+
+    @Override
+    public long[] toLongArray() {
+        if (longs != null) {
+            return longs.clone();
+        }
+        if (ints != null) {
+            return Arrays.stream(ints).asLongStream().toArray();
+        }
+        if (doubles != null) {
+            final var result = new long[doubles.length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = (long) doubles[i];
+            }
+            return result;
+        }
+        return super.toLongArray();
+    }
+
+    @Override
+    public DoubleBuffer asDoubleBuffer() {
+        return doubles != null ? DoubleBuffer.wrap(doubles).asReadOnlyBuffer() : super.asDoubleBuffer();
+    }
+
+    @Override
+    public LongBuffer asLongBuffer() {
+        return longs != null ? LongBuffer.wrap(longs).asReadOnlyBuffer() : super.asLongBuffer();
+    }
+
+    @Override
+    public IntBuffer asIntBuffer() {
+        return ints != null ? IntBuffer.wrap(ints).asReadOnlyBuffer() : super.asIntBuffer();
+    }
+
+    /**
+     * Collects the leading numbers of an array while they are of one kind. A reader holds one builder for all of its
+     * arrays, since nested arrays are only read after the builder gives up.
+     */
+    static final class Builder {
+        private static final int INITIAL_CAPACITY = 16;
+        // keeps a large buffer for one array at most.
+        private static final int MAX_RETAINED_CAPACITY = 4096;
+        private long[] bits = new long[INITIAL_CAPACITY];
+        private int size;
+        private int kind;
+        private boolean ints;
+
+        /**
+         * @param event {@link JsonCursor#LITERAL_INTEGER} or {@link JsonCursor#LITERAL_DOUBLE}
+         * @return false if the current number can't be kept with the previous ones, it's not added then
+         */
+        boolean add(JsonCursor cursor, int event) {
+            if (size == 0) {
+                kind = event;
+                ints = true;
+            } else if (kind != event) {
+                return false;
+            }
+            final long value;
+            if (event == LITERAL_INTEGER) {
+                // 18 chars always fit.
+                if (cursor.tokenEnd() - cursor.tokenStart() <= 18) {
+                    value = cursor.currentLong();
+                } else {
+                    final var number = cursor.currentNumber();
+                    if (number instanceof JsonBigDecimal) {
+                        return false;
+                    }
+                    value = number.getNumber().longValue();
+                }
+                ints &= value == (int) value;
+            } else {
+                final var d = cursor.currentDouble();
+                if (Double.isInfinite(d)) {
+                    return false;
+                }
+                value = Double.doubleToRawLongBits(d);
+            }
+            if (size == bits.length) {
+                bits = Arrays.copyOf(bits, size * 2);
+            }
+            bits[size++] = value;
+            return true;
+        }
+
+        /**
+         * Ends the array after all of its elements are added.
+         */
+        JsonArray build() {
+            if (size == 0) {
+                return new JsonArray();
+            }
+            final NumericJsonArray result;
+            if (kind == LITERAL_DOUBLE) {
+                final var doubles = new double[size];
+                for (int i = 0; i < size; i++) {
+                    doubles[i] = Double.longBitsToDouble(bits[i]);
+                }
+                result = new NumericJsonArray(null, null, doubles);
+            } else if (ints) {
+                final var ints = new int[size];
+                for (int i = 0; i < size; i++) {
+                    ints[i] = (int) bits[i];
+                }
+                result = new NumericJsonArray(ints, null, null);
+            } else {
+                result = new NumericJsonArray(null, Arrays.copyOf(bits, size), null);
+            }
+            reset();
+            return result;
+        }
+
+        /**
+         * Gives up, the rest of the array is added to the result by the reader.
+         */
+        JsonArray toJsonArray() {
+            final var result = new JsonArray();
+            result.ensureCapacity(size + 1);
+            for (int i = 0; i < size; i++) {
+                final var l = bits[i];
+                result.add(kind == LITERAL_DOUBLE ? new JsonDouble(Double.longBitsToDouble(l))
+                        : l == (int) l ? new JsonInt((int) l) : new JsonLong(l));
+            }
+            reset();
+            return result;
+        }
+
+        void reset() {
+            size = 0;
+            if (bits.length > MAX_RETAINED_CAPACITY) {
+                bits = new long[INITIAL_CAPACITY];
+            }
+        }
+    }
+}
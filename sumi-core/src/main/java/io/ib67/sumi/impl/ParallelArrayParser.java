@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import io.ib67.sumi.api.SymbolTable;
+import io.ib67.sumi.api.exception.JsonParseException;
+import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.api.object.primitive.JsonArray;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.ib67.sumi.api.JsonCursor.*;
+
+/**
+ * Parses a top-level array on the common {@link ForkJoinPool}.
+ * <p>
+ * A sequential pre-scan walks the elements of the array, matching brackets of the nested values only, and cuts it
+ * at commas into chunks of about the same size. Chunks are parsed by their own tokenizers in parallel, then joined
+ * in order.
+ */
+final class ParallelArrayParser {
+    /**
+     * Inputs smaller than it are parsed on the calling thread.
+     */
+    private static final int MIN_PARALLEL_SIZE = 1 << 20;
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+    /**
+     * Chunks per worker, so that a slow chunk doesn't hold up the others.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelArrayParser() {
+    }
+
+    static JsonValue parse(ByteBuffer buffer, @Nullable SymbolTable symbols, int maxDepth) {
+        final var tokens = new JsonTokenReader(buffer);
+        if (buffer.remaining() < MIN_PARALLEL_SIZE || tokens.nextEvent() != ARRAY_BEGIN) {
+            return new JsonReader(new JsonTokenReader(buffer, symbols), maxDepth).readValue();
+        }
+        final var bounds = split(tokens, buffer.remaining());
+        final var chunks = IntStream.range(0, bounds.length / 2)
+                .parallel()
+                .mapToObj(i -> parseChunk(buffer, symbols, maxDepth, bounds[i * 2], bounds[i * 2 + 1]))
+                .collect(Collectors.toList());
+        final var result = new JsonArray();
+        result.ensureCapacity(chunks.stream().mapToInt(List::size).sum());
+        for (final var chunk : chunks) {
+            result.addAll(chunk);
+        }
+        return result;
+    }
+
+    /**
+     * @return pairs of absolute start and end of the chunks, the commas between them are excluded
+     */
+    private static int[] split(JsonTokenReader tokens, int size) {
+        final var chunkSize = Math.max(MIN_CHUNK_SIZE, size / (ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD));
+        var bounds = new int[16];
+        var len = 0;
+        var chunkStart = tokens.position();
+        while (true) {
+            final var event = tokens.nextEvent();
+            switch (event) {
+                case COMMA -> {
+                    if (tokens.tokenStart() - chunkStart < chunkSize) {
+                        continue;
+                    }
+                }
+                case ARRAY_END -> {
+                }
+                case EOF -> throw tokens.error("Unclosed JSON Array.");
+                default -> {
+                    tokens.skipChildren();
+                    continue;
+                }
+            }
+            if (len + 2 > bounds.length) {
+                bounds = Arrays.copyOf(bounds, len * 2);
+            }
+            bounds[len++] = chunkStart;
+            bounds[len++] = tokens.tokenStart();
+            if (event == ARRAY_END) {
+                return Arrays.copyOf(bounds, len);
+            }
+            chunkStart = tokens.tokenEnd();
+        }
+    }
+
+    private static JsonArray parseChunk(ByteBuffer buffer, @Nullable SymbolTable symbols, int maxDepth, int start, int end) {
+        final var tokens = new JsonTokenReader(buffer.duplicate().limit(end).position(start), symbols);
+        // elements are nested in the array.
+        final var reader = new JsonReader(tokens, maxDepth - 1);
+        final var elements = new JsonArray();
+        while (true) {
+            final var event = tokens.nextEvent();
+            switch (event) {
+                case EOF -> {
+                    return elements;
+                }
+                case COMMA -> {
+                }
+                default -> elements.add(reader.readValue(event));
+            }
+        }
+    }
+}
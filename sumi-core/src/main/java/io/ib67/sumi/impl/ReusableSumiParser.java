@@ -0,0 +1,127 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import io.ib67.sumi.api.JsonCursor;
+import io.ib67.sumi.api.JsonLimits;
+import io.ib67.sumi.api.ReusableJsonParser;
+import io.ib67.sumi.api.SymbolTable;
+import io.ib67.sumi.api.codec.JsonCodec;
+import io.ib67.sumi.api.codec.JsonCodecs;
+import io.ib67.sumi.api.exception.JsonParseException;
+import io.ib67.sumi.api.object.JsonValue;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public final class ReusableSumiParser implements ReusableJsonParser {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+    /**
+     * Scratch buffers larger than it are dropped when the parser returns to a pool.
+     */
+    private static final int MAX_POOLED_SCRATCH = 1 << 16;
+    private final JsonTokenReader tokens;
+    private final JsonReader reader;
+
+    public ReusableSumiParser(@Nullable SymbolTable symbols) {
+        this(symbols, JsonLimits.DEFAULT.maxDepth());
+    }
+
+    public ReusableSumiParser(@Nullable SymbolTable symbols, int maxDepth) {
+        tokens = new JsonTokenReader(EMPTY, symbols);
+        reader = new JsonReader(tokens, maxDepth);
+    }
+
+    @Override
+    public ReusableSumiParser reset(ByteBuffer input) {
+        tokens.reset(input);
+        reader.reset();
+        return this;
+    }
+
+    @Override
+    public JsonValue parse() {
+        return reader.readValue();
+    }
+
+    @Override
+    public <T> T fromJson(Class<T> typeOfT) {
+        return bind(JsonCodecs.get(typeOfT));
+    }
+
+    <T> T bind(JsonCodec<T> codec) {
+        if (tokens.nextEvent() == JsonCursor.EOF) {
+            throw tokens.error("TokenStream is ended");
+        }
+        return codec.read(tokens);
+    }
+
+    @Override
+    public JsonCursor cursor() {
+        return tokens;
+    }
+
+    /**
+     * A pool of parsers, striped by threads instead of held in thread locals, so virtual threads share them too.
+     * Parsers are borrowed by taking them out of a slot, a new one is created when the slot is empty.
+     */
+    static final class Pool {
+        private final AtomicReferenceArray<ReusableSumiParser> slots;
+        private final int mask;
+        @Nullable
+        private final SymbolTable symbols;
+        private final int maxDepth;
+
+        Pool(@Nullable SymbolTable symbols, int maxDepth) {
+            this.symbols = symbols;
+            this.maxDepth = maxDepth;
+            final var size = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+            slots = new AtomicReferenceArray<>(size);
+            mask = size - 1;
+        }
+
+        private int slot() {
+            final var id = Thread.currentThread().getId();
+            return (int) (id ^ id >>> 32) * 0x9E3779B9 >>> 16 & mask;
+        }
+
+        ReusableSumiParser acquire(ByteBuffer input) {
+            final var slot = slot();
+            final var parser = slots.get(slot);
+            if (parser != null && slots.compareAndSet(slot, parser, null)) {
+                return parser.reset(input);
+            }
+            return new ReusableSumiParser(symbols, maxDepth).reset(input);
+        }
+
+        void release(ReusableSumiParser parser) {
+            // doesn't keep the input reachable.
+            parser.tokens.reset(EMPTY);
+            parser.tokens.trimScratch(MAX_POOLED_SCRATCH);
+            slots.compareAndSet(slot(), null, parser);
+        }
+    }
+}
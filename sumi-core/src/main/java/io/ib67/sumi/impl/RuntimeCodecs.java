@@ -0,0 +1,373 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import io.ib67.sumi.api.codec.JsonCodec;
+import io.ib67.sumi.api.codec.JsonCodecs;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static io.ib67.sumi.impl.ClassFileWriter.*;
+
+/**
+ * Generates codecs at runtime for types which aren't annotated with {@code @SumiTarget}, such as records and DTOs of
+ * other libraries.
+ * <p>
+ * A codec is a hidden class holding a {@link MethodHandle} for the constructor and every accessor in its static
+ * finals, so the JIT treats them as constants and inlines the accesses. Keys are dispatched by a
+ * {@code lookupswitch} over their precomputed hashes. Records are built through their canonical constructors, other
+ * classes through their no-arg constructors with every non-static, non-transient field, final fields are only
+ * written.
+ */
+public final class RuntimeCodecs {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final String CURSOR = "io/ib67/sumi/api/JsonCursor";
+    private static final String WRITER = "io/ib67/sumi/api/JsonWriter";
+    private static final String CODEC = "io/ib67/sumi/api/codec/JsonCodec";
+    private static final String CODECS = "io/ib67/sumi/api/codec/JsonCodecs";
+    private static final String HANDLE = "java/lang/invoke/MethodHandle";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String STRING = "java/lang/String";
+    private static final String READ = "(L" + CURSOR + ";)";
+    private static final String WRITE = "(L" + WRITER + ";";
+
+    private RuntimeCodecs() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the type or one of its properties is not supported, or it can't be accessed
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> JsonCodec<T> generate(Class<T> type) {
+        if (type.isPrimitive() || type.isArray() || type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            throw new IllegalArgumentException("Can't generate a codec for " + type.getName() + ", register one instead");
+        }
+        try {
+            final var model = type.isRecord() ? recordModel(type) : classModel(type);
+            final var codec = LOOKUP.defineHiddenClassWithClassData(model.generate(type), model.data(), true);
+            return (JsonCodec<T>) codec.findConstructor(codec.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Can't access " + type.getName() + ", open its package to sumi.core or annotate it with @SumiTarget", e);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Can't initialize the codec of " + type.getName(), t);
+        }
+    }
+
+    private static MethodHandles.Lookup lookupIn(Class<?> type) throws IllegalAccessException {
+        LOOKUP.lookupClass().getModule().addReads(type.getModule());
+        return MethodHandles.privateLookupIn(type, LOOKUP);
+    }
+
+    private static Model recordModel(Class<?> type) throws IllegalAccessException, NoSuchMethodException {
+        final var lookup = lookupIn(type);
+        final var components = type.getRecordComponents();
+        final var properties = new ArrayList<Property>(components.length);
+        final var parameters = new Class<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+            final var component = components[i];
+            parameters[i] = component.getType();
+            final var getter = lookup.unreflect(component.getAccessor());
+            properties.add(new Property(component.getName(), component.getType(), codecOf(type, component.getName(), component.getGenericType()), getter, null));
+        }
+        final var constructor = lookup.findConstructor(type, MethodType.methodType(void.class, parameters));
+        return new Model(true, constructor.asType(MethodType.methodType(Object.class,
+                Arrays.stream(parameters).map(RuntimeCodecs::erase).toArray(Class[]::new))), properties);
+    }
+
+    private static Model classModel(Class<?> type) throws IllegalAccessException, NoSuchMethodException {
+        final var constructor = lookupIn(type).findConstructor(type, MethodType.methodType(void.class));
+        final var properties = new ArrayList<Property>();
+        final var names = new HashSet<String>();
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            final var lookup = lookupIn(c);
+            final var declared = new ArrayList<Property>();
+            for (final Field field : c.getDeclaredFields()) {
+                final var modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic() || !names.add(field.getName())) {
+                    continue;
+                }
+                final var setter = Modifier.isFinal(modifiers) ? null : lookup.unreflectSetter(field);
+                final var codec = codecOf(type, field.getName(), field.getGenericType());
+                declared.add(new Property(field.getName(), field.getType(), codec, lookup.unreflectGetter(field), setter));
+            }
+            // fields of super classes go first.
+            properties.addAll(0, declared);
+        }
+        return new Model(false, constructor.asType(MethodType.methodType(Object.class)), properties);
+    }
+
+    /**
+     * @return codec of a property which isn't bound by the codec itself, or null
+     */
+    private static JsonCodec<?> codecOf(Class<?> owner, String name, Type type) {
+        if (type instanceof Class<?> c) {
+            // looked up on first use, since it may be the codec being generated.
+            return erase(c) == Object.class ? JsonCodecs.lazy(c) : null;
+        }
+        try {
+            return JsonCodecs.get(type);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Type of " + owner.getName() + "." + name + " is not supported: " + type.getTypeName(), e);
+        }
+    }
+
+    /**
+     * Types of the handles in the codec, references except strings are passed as objects.
+     */
+    private static Class<?> erase(Class<?> type) {
+        return type.isPrimitive() || type == String.class ? type : Object.class;
+    }
+
+    private static String descriptor(Class<?> type) {
+        return erase(type).descriptorString();
+    }
+
+    private static int slots(Class<?> type) {
+        return type == long.class || type == double.class ? 2 : 1;
+    }
+
+    private static int loadOpcode(Class<?> type) {
+        return type == long.class ? LLOAD : type == double.class ? DLOAD : type == float.class ? FLOAD
+                : type.isPrimitive() ? ILOAD : ALOAD;
+    }
+
+    private record Property(String name, Class<?> type, JsonCodec<?> codec, MethodHandle getter, MethodHandle setter) {
+        boolean nested() {
+            return codec != null;
+        }
+    }
+
+    /**
+     * Fields of the codec: {@code C} for the constructor, {@code G}, {@code S} and {@code T} followed by the index of a
+     * property for its getter, setter and codec.
+     */
+    private record Model(boolean record, MethodHandle constructor, List<Property> properties) {
+        Object[] data() {
+            final var data = new Object[1 + properties.size() * 3];
+            data[0] = constructor;
+            for (int i = 0; i < properties.size(); i++) {
+                final var property = properties.get(i);
+                data[1 + i * 3] = property.getter.asType(MethodType.methodType(erase(property.type), Object.class));
+                data[2 + i * 3] = property.setter == null ? null
+                        : property.setter.asType(MethodType.methodType(void.class, Object.class, erase(property.type)));
+                data[3 + i * 3] = property.codec;
+            }
+            return data;
+        }
+
+        byte[] generate(Class<?> type) {
+            final var name = "io/ib67/sumi/impl/" + type.getName().substring(type.getName().lastIndexOf('.') + 1) + "$$SumiCodec";
+            final var cw = new ClassFileWriter(ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, name, OBJECT, CODEC);
+            final var handle = "L" + HANDLE + ";";
+            cw.field(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "C", handle);
+            for (int i = 0; i < properties.size(); i++) {
+                cw.field(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "G" + i, handle);
+                cw.field(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "S" + i, handle);
+                cw.field(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "T" + i, "L" + CODEC + ";");
+            }
+            final var clinit = cw.method(ACC_STATIC, "<clinit>", "()V")
+                    .invoke(INVOKESTATIC, "java/lang/invoke/MethodHandles", "lookup", "()Ljava/lang/invoke/MethodHandles$Lookup;")
+                    .ldc("_")
+                    .ldcClass("[Ljava/lang/Object;")
+                    .invoke(INVOKESTATIC, "java/lang/invoke/MethodHandles", "classData", "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/Object;")
+                    .type(CHECKCAST, "[Ljava/lang/Object;")
+                    .var(ASTORE, 0);
+            for (int i = 0; i < 1 + properties.size() * 3; i++) {
+                final var isType = i != 0 && i % 3 == 0;
+                clinit.var(ALOAD, 0).push(i).op(AALOAD)
+                        .type(CHECKCAST, isType ? CODEC : HANDLE)
+                        .field(PUTSTATIC, name, i == 0 ? "C" : "GST".charAt((i - 1) % 3) + String.valueOf((i - 1) / 3),
+                                isType ? "L" + CODEC + ";" : handle);
+            }
+            clinit.op(RETURN).end(4, 1);
+            cw.method(ACC_PUBLIC, "<init>", "()V")
+                    .var(ALOAD, 0).invoke(INVOKESPECIAL, OBJECT, "<init>", "()V").op(RETURN).end(1, 1);
+            read(cw, name);
+            write(cw, name);
+            return cw.toByteArray();
+        }
+
+        private void read(ClassFileWriter cw, String name) {
+            final var code = cw.method(ACC_PUBLIC, "read", READ + "L" + OBJECT + ";");
+            final var begin = new Label();
+            code.var(ALOAD, 1).invoke(INVOKESTATIC, CODECS, "beginObject", READ + "Z")
+                    .jump(IFNE, begin)
+                    .op(ACONST_NULL).op(ARETURN)
+                    .mark(begin);
+            // locals: this, cursor, key, then the object or the components.
+            final var locals = new int[properties.size()];
+            var maxLocals = 3;
+            if (record) {
+                for (int i = 0; i < properties.size(); i++) {
+                    final var type = properties.get(i).type;
+                    locals[i] = maxLocals;
+                    maxLocals += slots(type);
+                    code.op(type == long.class ? LCONST_0 : type == double.class ? DCONST_0 : type == float.class ? FCONST_0
+                            : type.isPrimitive() ? ICONST_0 : ACONST_NULL).var(loadOpcode(type) + (ISTORE - ILOAD), locals[i]);
+                }
+            } else {
+                code.field(GETSTATIC, name, "C", "L" + HANDLE + ";")
+                        .invoke(INVOKEVIRTUAL, HANDLE, "invokeExact", "()L" + OBJECT + ";")
+                        .var(ASTORE, 3);
+                maxLocals = 4;
+            }
+            final var loop = new Label();
+            final var skip = new Label();
+            final var end = new Label();
+            code.mark(loop)
+                    .var(ALOAD, 1).invoke(INVOKESTATIC, CODECS, "nextKey", READ + "L" + STRING + ";")
+                    .op(DUP).var(ASTORE, 2)
+                    .jump(IFNULL, end)
+                    .var(ALOAD, 2).invoke(INVOKEVIRTUAL, STRING, "hashCode", "()I");
+            final var cases = new TreeMap<Integer, List<Integer>>();
+            for (int i = 0; i < properties.size(); i++) {
+                if (record || properties.get(i).setter != null) {
+                    cases.computeIfAbsent(properties.get(i).name.hashCode(), k -> new ArrayList<>()).add(i);
+                }
+            }
+            final var labels = new Label[cases.size()];
+            Arrays.setAll(labels, i -> new Label());
+            code.lookupSwitch(skip, cases.keySet().stream().mapToInt(Integer::intValue).toArray(), labels);
+            var n = 0;
+            for (final Map.Entry<Integer, List<Integer>> group : cases.entrySet()) {
+                code.mark(labels[n++]);
+                for (final var i : group.getValue()) {
+                    final var property = properties.get(i);
+                    final var next = new Label();
+                    code.var(ALOAD, 2).ldc(property.name)
+                            .invoke(INVOKEVIRTUAL, STRING, "equals", "(L" + OBJECT + ";)Z")
+                            .jump(IFEQ, next);
+                    if (record) {
+                        readValue(code, name, i, property);
+                        code.var(loadOpcode(property.type) + (ISTORE - ILOAD), locals[i]);
+                    } else {
+                        code.field(GETSTATIC, name, "S" + i, "L" + HANDLE + ";").var(ALOAD, 3);
+                        readValue(code, name, i, property);
+                        code.invoke(INVOKEVIRTUAL, HANDLE, "invokeExact", "(L" + OBJECT + ";" + descriptor(property.type) + ")V");
+                    }
+                    code.jump(GOTO, loop).mark(next);
+                }
+                code.jump(GOTO, skip);
+            }
+            code.mark(skip)
+                    .var(ALOAD, 1).invoke(INVOKEINTERFACE, CURSOR, "skipChildren", "()V")
+                    .jump(GOTO, loop)
+                    .mark(end);
+            if (record) {
+                final var arguments = new StringBuilder("(");
+                code.field(GETSTATIC, name, "C", "L" + HANDLE + ";");
+                for (int i = 0; i < properties.size(); i++) {
+                    final var type = properties.get(i).type;
+                    code.var(loadOpcode(type), locals[i]);
+                    arguments.append(descriptor(type));
+                }
+                code.invoke(INVOKEVIRTUAL, HANDLE, "invokeExact", arguments.append(")L").append(OBJECT).append(';').toString());
+            } else {
+                code.var(ALOAD, 3);
+            }
+            code.op(ARETURN).end(Math.max(6, maxLocals), maxLocals);
+        }
+
+        private static void readValue(ClassFileWriter.Code code, String name, int i, Property property) {
+            final var type = property.type;
+            if (property.nested()) {
+                code.field(GETSTATIC, name, "T" + i, "L" + CODEC + ";")
+                        .var(ALOAD, 1)
+                        .invoke(INVOKEINTERFACE, CODEC, "read", READ + "L" + OBJECT + ";");
+                return;
+            }
+            code.var(ALOAD, 1);
+            if (type == int.class) {
+                code.invoke(INVOKEINTERFACE, CURSOR, "currentInt", "()I");
+            } else if (type == long.class) {
+                code.invoke(INVOKEINTERFACE, CURSOR, "currentLong", "()J");
+            } else if (type == double.class || type == float.class) {
+                code.invoke(INVOKEINTERFACE, CURSOR, "currentDouble", "()D");
+                if (type == float.class) {
+                    code.op(D2F);
+                }
+            } else {
+                final var reader = switch (type.getName()) {
+                    case "short" -> "readShort";
+                    case "byte" -> "readByte";
+                    case "boolean" -> "readBoolean";
+                    case "char" -> "readChar";
+                    default -> "readString";
+                };
+                code.invoke(INVOKESTATIC, CODECS, reader, READ + descriptor(type));
+            }
+        }
+
+        private void write(ClassFileWriter cw, String name) {
+            final var code = cw.method(ACC_PUBLIC, "write", WRITE + "L" + OBJECT + ";)V");
+            final var writer = "L" + WRITER + ";";
+            final var nonNull = new Label();
+            code.var(ALOAD, 2).jump(IFNONNULL, nonNull)
+                    .var(ALOAD, 1).invoke(INVOKEINTERFACE, WRITER, "nullValue", "()" + writer).op(POP).op(RETURN)
+                    .mark(nonNull)
+                    .var(ALOAD, 1).invoke(INVOKEINTERFACE, WRITER, "beginObject", "()" + writer).op(POP);
+            for (int i = 0; i < properties.size(); i++) {
+                final var property = properties.get(i);
+                final var type = property.type;
+                if (property.nested()) {
+                    code.field(GETSTATIC, name, "T" + i, "L" + CODEC + ";");
+                }
+                // the value is written through the writer returned by name().
+                code.var(ALOAD, 1).ldc(property.name).invoke(INVOKEINTERFACE, WRITER, "name", "(L" + STRING + ";)" + writer);
+                code.field(GETSTATIC, name, "G" + i, "L" + HANDLE + ";").var(ALOAD, 2)
+                        .invoke(INVOKEVIRTUAL, HANDLE, "invokeExact", "(L" + OBJECT + ";)" + descriptor(type));
+                if (property.nested()) {
+                    code.invoke(INVOKEINTERFACE, CODEC, "write", WRITE + "L" + OBJECT + ";)V");
+                } else if (type == float.class) {
+                    code.invoke(INVOKESTATIC, CODECS, "writeFloat", WRITE + "F)V");
+                } else if (type == char.class) {
+                    code.invoke(INVOKESTATIC, STRING, "valueOf", "(C)L" + STRING + ";")
+                            .invoke(INVOKEINTERFACE, WRITER, "value", "(L" + STRING + ";)" + writer).op(POP);
+                } else {
+                    if (type == int.class || type == short.class || type == byte.class) {
+                        code.op(I2L);
+                    }
+                    final var descriptor = type == int.class || type == short.class || type == byte.class ? "J" : descriptor(type);
+                    code.invoke(INVOKEINTERFACE, WRITER, "value", "(" + descriptor + ")" + writer).op(POP);
+                }
+            }
+            code.var(ALOAD, 1).invoke(INVOKEINTERFACE, WRITER, "endObject", "()" + writer).op(POP)
+                    .op(RETURN).end(8, 3);
+        }
+    }
+}
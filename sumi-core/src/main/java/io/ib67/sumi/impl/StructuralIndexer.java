@@ -0,0 +1,199 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import io.ib67.sumi.api.exception.JsonParseException;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static io.ib67.sumi.impl.Swar.ONES;
+import static io.ib67.sumi.impl.Swar.equalBytes;
+
+/**
+ * Stage 1 of the {@link StructuralJsonParser}: finds the position of every structural character in one pass.
+ * <p>
+ * The input is classified in blocks of 64 bytes, each byte class becoming one bit of a long. Escapes, string
+ * bounds and scalar starts are then derived with plain bit arithmetic, as described by simdjson. The result holds
+ * the positions of {@code {}[]:,} outside of texts, of every opening quote, and of the first byte of every other
+ * scalar.
+ */
+final class StructuralIndexer {
+    private static final int BLOCK = 64;
+    private static final long EVEN_BITS = 0x5555555555555555L;
+    private static final long ODD_BITS = ~EVEN_BITS;
+    private static final long GATHER = 0x0102040810204080L;
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long QUOTES = ONES * '"';
+    private static final long ESCAPES = ONES * '\\';
+    private static final long LOWER_CASE = ONES * 0x20;
+    // '[' and ']' become '{' and '}' with the lower case bit set.
+    private static final long OPEN_BRACES = ONES * '{';
+    private static final long CLOSE_BRACES = ONES * '}';
+    private static final long COMMAS = ONES * ',';
+    private static final long COLONS = ONES * ':';
+
+    private final ByteBuffer input;
+    private final ByteBuffer words;
+    private final byte[] tail = new byte[BLOCK];
+    /**
+     * Classes of the current block: quotes, backslashes, structural operators and whitespaces.
+     */
+    private final long[] masks = new long[4];
+
+    private int[] indexes;
+    private int count;
+
+    // carried from the previous block.
+    private long prevEscaped;
+    private long prevInString;
+    private long prevScalarPredecessor = 1;
+
+    StructuralIndexer(ByteBuffer input) {
+        this.input = input;
+        this.words = input.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.indexes = new int[Math.max(BLOCK, input.remaining() >>> 4)];
+    }
+
+    /**
+     * @return 1 in bit {@code i} for every byte {@code i} flagged with 0x80 by a SWAR mask
+     */
+    private static long gather(long mask) {
+        return (((mask & Swar.HIGHS) >>> 7) * GATHER) >>> 56;
+    }
+
+    private static long prefixXor(long x) {
+        x ^= x << 1;
+        x ^= x << 2;
+        x ^= x << 4;
+        x ^= x << 8;
+        x ^= x << 16;
+        x ^= x << 32;
+        return x;
+    }
+
+    int[] indexes() {
+        return indexes;
+    }
+
+    int count() {
+        return count;
+    }
+
+    StructuralIndexer index() {
+        final var start = input.position();
+        final var limit = input.limit();
+        var i = start;
+        for (; i + BLOCK <= limit; i += BLOCK) {
+            classify(words, i);
+            indexBlock(i);
+        }
+        if (i < limit) {
+            // pad the last block with spaces, which are never structural.
+            Arrays.fill(tail, (byte) ' ');
+            input.get(i, tail, 0, limit - i);
+            classify(ByteBuffer.wrap(tail).order(ByteOrder.LITTLE_ENDIAN), 0);
+            indexBlock(i);
+        }
+        if (prevInString != 0) {
+            throw new JsonParseException("Unexcepted EOF, a closing double-quoting is excepted", input, limit);
+        }
+        return this;
+    }
+
+    /**
+     * Fills {@link #masks} from 64 bytes, 8 bytes at a time.
+     *
+     * @param block little-endian view holding the block
+     */
+    private void classify(ByteBuffer block, int offset) {
+        final var array = block.hasArray() ? block.array() : null;
+        final var arrayOffset = array != null ? block.arrayOffset() + offset : 0;
+        long quotes = 0, escapes = 0, operators = 0, whitespaces = 0;
+        for (int j = 0; j < BLOCK; j += Long.BYTES) {
+            final var w = array != null ? (long) LONG_VIEW.get(array, arrayOffset + j) : block.getLong(offset + j);
+            quotes |= gather(equalBytes(w, QUOTES)) << j;
+            escapes |= gather(equalBytes(w, ESCAPES)) << j;
+            final var lower = w | LOWER_CASE;
+            operators |= gather(equalBytes(lower, OPEN_BRACES) | equalBytes(lower, CLOSE_BRACES)
+                    | equalBytes(w, COMMAS) | equalBytes(w, COLONS)) << j;
+            whitespaces |= gather(Swar.whitespaces(w)) << j;
+        }
+        masks[0] = quotes;
+        masks[1] = escapes;
+        masks[2] = operators;
+        masks[3] = whitespaces;
+    }
+
+    /**
+     * Turns the masks of one block into structural positions.
+     *
+     * @param base where the block begins in the input
+     */
+    private void indexBlock(int base) {
+        var quotes = masks[0];
+        final var escapes = masks[1];
+        final var operators = masks[2];
+        final var whitespaces = masks[3];
+
+        // chars escaped by an odd sequence of backslashes.
+        final var startEdges = escapes & ~(escapes << 1);
+        final var evenStartMask = EVEN_BITS ^ prevEscaped;
+        final var evenStarts = startEdges & evenStartMask;
+        final var oddStarts = startEdges & ~evenStartMask;
+        final var evenCarries = escapes + evenStarts;
+        var oddCarries = escapes + oddStarts;
+        final var endsOddEscape = Long.compareUnsigned(oddCarries, escapes) < 0;
+        oddCarries |= prevEscaped;
+        prevEscaped = endsOddEscape ? 1 : 0;
+        final var escaped = (evenCarries & ~escapes & ODD_BITS) | (oddCarries & ~escapes & EVEN_BITS);
+
+        // from an opening quote (inclusive) to its closing quote (exclusive).
+        quotes &= ~escaped;
+        final var inString = prefixXor(quotes) ^ prevInString;
+        prevInString = inString >> 63;
+
+        var structurals = (operators & ~inString) | quotes;
+        // a scalar starts with a non-whitespace following a structural char or a whitespace.
+        final var scalarPredecessors = structurals | whitespaces;
+        final var scalarStarts = ((scalarPredecessors << 1) | prevScalarPredecessor) & ~whitespaces & ~inString;
+        prevScalarPredecessor = scalarPredecessors >>> 63;
+        structurals |= scalarStarts;
+        // closing quotes are not needed.
+        structurals &= ~(quotes & ~inString);
+
+        if (count + BLOCK > indexes.length) {
+            indexes = Arrays.copyOf(indexes, Math.max(indexes.length + (indexes.length >> 1), count + BLOCK));
+        }
+        while (structurals != 0) {
+            indexes[count++] = base + Long.numberOfTrailingZeros(structurals);
+            structurals &= structurals - 1;
+        }
+    }
+}
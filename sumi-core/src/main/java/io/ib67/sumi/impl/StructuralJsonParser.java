@@ -0,0 +1,286 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import io.ib67.sumi.api.SymbolTable;
+import io.ib67.sumi.api.exception.JsonParseException;
+import io.ib67.sumi.api.object.JsonObject;
+import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.api.object.primitive.JsonArray;
+import io.ib67.sumi.api.object.primitive.JsonBoolean;
+import io.ib67.sumi.api.object.primitive.JsonNull;
+import io.ib67.sumi.api.object.primitive.JsonString;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static io.ib67.sumi.api.JsonCursor.*;
+
+/**
+ * A two-stage parser. Stage 1 ({@link StructuralIndexer}) finds every structural character in one wide pass,
+ * stage 2 builds the tree by walking those positions, so brackets and separators are never searched byte by byte.
+ * Scalars are still decoded by a {@link JsonTokenReader}, which is moved to the indexed positions.
+ */
+public class StructuralJsonParser extends SumiJsonParser {
+    public static final StructuralJsonParser INSTANCE = new StructuralJsonParser();
+
+    public StructuralJsonParser() {
+    }
+
+    public StructuralJsonParser(@Nullable SymbolTable symbols) {
+        super(symbols);
+    }
+
+    @Override
+    public JsonValue parseBuffer(ByteBuffer buffer) {
+        final var indexer = new StructuralIndexer(buffer).index();
+        return new Walker(tokens(buffer), indexer.indexes(), indexer.count(), maxDepth).parse();
+    }
+
+    /**
+     * Walks the indexes without recursion, open containers are kept in a stack like {@link JsonReader} does.
+     */
+    private static final class Walker {
+        private static final int MAX_HINTED_DEPTH = 16;
+        private static final int INITIAL_DEPTH = 16;
+        private final ByteBuffer input;
+        private final JsonTokenReader scalars;
+        private final int[] indexes;
+        private final int count;
+        private final int maxDepth;
+        private final NumericJsonArray.Builder numbers = new NumericJsonArray.Builder();
+        // see JsonReader.
+        private final int[] sizeHints = new int[MAX_HINTED_DEPTH];
+        private JsonObject[] objects = new JsonObject[INITIAL_DEPTH];
+        private JsonArray[] arrays = new JsonArray[INITIAL_DEPTH];
+        private String[] keys = new String[INITIAL_DEPTH];
+        private int depth;
+        private int next;
+
+        private Walker(JsonTokenReader scalars, int[] indexes, int count, int maxDepth) {
+            this.input = scalars.source();
+            this.scalars = scalars;
+            this.indexes = indexes;
+            this.count = count;
+            this.maxDepth = maxDepth;
+        }
+
+        private static boolean isWhitespace(byte b) {
+            return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+        }
+
+        private JsonValue parse() {
+            if (count == 0) {
+                throw new JsonParseException("TokenStream is ended", input, input.limit());
+            }
+            final var value = readValue();
+            if (next != count) {
+                throw new JsonParseException("Unexcepted content after the root value", input, indexes[next]);
+            }
+            return value;
+        }
+
+        private byte peek() {
+            if (next >= count) {
+                throw new JsonParseException("Unexcepted EOF", input, input.limit());
+            }
+            return input.get(indexes[next]);
+        }
+
+        private void expect(byte b, String what) {
+            if (peek() != b) {
+                throw new JsonParseException("Except " + what + " but encounter \"" + (char) peek() + "\"", input, indexes[next]);
+            }
+            next++;
+        }
+
+        /**
+         * Every round either completes a value and adds it to the container on the top, or goes to the next child of
+         * the container on the top.
+         */
+        private JsonValue readValue() {
+            var value = begin();
+            while (true) {
+                if (value == null) {
+                    value = objects[depth - 1] != null ? nextMember() : begin();
+                    continue;
+                }
+                if (depth == 0) {
+                    return value;
+                }
+                final var top = depth - 1;
+                if (objects[top] != null) {
+                    objects[top].addProperty(keys[top], value);
+                } else {
+                    arrays[top].add(value);
+                }
+                value = endOrComma();
+            }
+        }
+
+        /**
+         * @return the value of the next member, or null if a container is opened for it
+         */
+        private JsonValue nextMember() {
+            if (peek() != Constants.DOUBLE_QUOTE) {
+                throw new JsonParseException("Except a key but encounter \"" + (char) peek() + "\"", input, indexes[next]);
+            }
+            keys[depth - 1] = readKey();
+            expect(Constants.SEMICOLON, "SEMICOLON");
+            return begin();
+        }
+
+        /**
+         * @return the container on the top if it ends after its last child, or null if a comma follows the child
+         */
+        private JsonValue endOrComma() {
+            final var top = depth - 1;
+            final var obj = objects[top];
+            if (obj != null && peek() == Constants.OBJECT_END) {
+                next++;
+                if (top < MAX_HINTED_DEPTH) {
+                    sizeHints[top] = obj.getAsMap().size();
+                }
+                objects[top] = null;
+                keys[top] = null;
+                depth = top;
+                return obj;
+            }
+            if (obj == null && peek() == Constants.ARRAY_END) {
+                next++;
+                final var arr = arrays[top];
+                arrays[top] = null;
+                depth = top;
+                return arr;
+            }
+            expect(Constants.COMMA, "COMMA");
+            return null;
+        }
+
+        /**
+         * @return the value at the next index, or null if it's a container which is opened for its children
+         */
+        private JsonValue begin() {
+            return switch (peek()) {
+                case Constants.OBJECT_BEGIN -> beginObject();
+                case Constants.ARRAY_BEGIN -> beginArray();
+                default -> readScalar();
+            };
+        }
+
+        private JsonObject beginObject() {
+            final var at = indexes[next++];
+            final var obj = new JsonObject(depth < MAX_HINTED_DEPTH ? sizeHints[depth] : 0);
+            if (depth >= maxDepth) {
+                throw tooDeep(at);
+            }
+            if (peek() == Constants.OBJECT_END) {
+                next++;
+                return obj;
+            }
+            push();
+            objects[depth - 1] = obj;
+            return null;
+        }
+
+        private JsonArray beginArray() {
+            final var at = indexes[next++];
+            if (depth >= maxDepth) {
+                throw tooDeep(at);
+            }
+            if (peek() == Constants.ARRAY_END) {
+                next++;
+                return new JsonArray();
+            }
+            // leading numbers of one kind go to the builder.
+            while (peek() != Constants.OBJECT_BEGIN && peek() != Constants.ARRAY_BEGIN) {
+                scalars.seek(indexes[next]);
+                final var event = scalars.nextEvent();
+                if (event != LITERAL_INTEGER && event != LITERAL_DOUBLE || !numbers.add(scalars, event)) {
+                    break;
+                }
+                next++;
+                checkScalarEnd();
+                if (peek() == Constants.ARRAY_END) {
+                    next++;
+                    return numbers.build();
+                }
+                expect(Constants.COMMA, "COMMA");
+            }
+            push();
+            arrays[depth - 1] = numbers.toJsonArray();
+            return null;
+        }
+
+        private void push() {
+            if (depth == objects.length) {
+                objects = Arrays.copyOf(objects, depth * 2);
+                arrays = Arrays.copyOf(arrays, depth * 2);
+                keys = Arrays.copyOf(keys, depth * 2);
+            }
+            depth++;
+        }
+
+        private JsonParseException tooDeep(int at) {
+            return new JsonParseException("Nesting is deeper than " + maxDepth, input, at);
+        }
+
+        private JsonValue readScalar() {
+            final var at = indexes[next++];
+            scalars.seek(at);
+            final var value = switch (scalars.nextEvent()) {
+                case LITERAL_TEXT -> new JsonString(scalars.currentString());
+                case LITERAL_INTEGER, LITERAL_DOUBLE -> scalars.currentNumber();
+                case NULL -> JsonNull.NULL;
+                case TRUE -> JsonBoolean.TRUE;
+                case FALSE -> JsonBoolean.FALSE;
+                default -> throw new JsonParseException("Unexcepted char \"" + (char) input.get(at) + "\"", input, at);
+            };
+            checkScalarEnd();
+            return value;
+        }
+
+        private String readKey() {
+            scalars.seek(indexes[next++]);
+            scalars.nextEvent();
+            final var key = scalars.currentKey();
+            checkScalarEnd();
+            return key;
+        }
+
+        /**
+         * The scalar must end right before the next structural char.
+         */
+        private void checkScalarEnd() {
+            final var end = next < count ? indexes[next] : input.limit();
+            for (int i = scalars.position(); i < end; i++) {
+                if (!isWhitespace(input.get(i))) {
+                    throw new JsonParseException("Unexcepted char \"" + (char) input.get(i) + "\"", input, i);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,472 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import io.ib67.sumi.api.JsonFeeder;
+import io.ib67.sumi.api.JsonLimits;
+import io.ib67.sumi.api.SymbolTable;
+import io.ib67.sumi.api.exception.JsonParseException;
+import io.ib67.sumi.api.object.JsonObject;
+import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.api.object.primitive.JsonArray;
+import io.ib67.sumi.api.object.primitive.JsonBoolean;
+import io.ib67.sumi.api.object.primitive.JsonNull;
+import io.ib67.sumi.api.object.primitive.JsonNumber;
+import io.ib67.sumi.api.object.primitive.JsonString;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class SumiJsonFeeder implements JsonFeeder {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final JsonTokenReader reader;
+    private final int maxDepth;
+    /**
+     * The incomplete token at the end of the former chunk, between {@code carryStart} and {@code carryEnd}. Chunks
+     * are appended after it until the token is complete, so a token over many chunks is copied only once.
+     */
+    private byte[] carry = new byte[64];
+    private int carryStart;
+    private int carryEnd;
+    // whether the reader is on the carry instead of a chunk.
+    private boolean readingCarry;
+    // the source gives the incomplete token again at the start of the next chunk, so it's not copied to the carry.
+    private boolean refeeding;
+    // the rest of the former chunk when refeeding, which starts with the incomplete token.
+    private ByteBuffer pending;
+    private boolean needInput = true;
+    private boolean ended;
+    // depth of the container being skipped.
+    private int skipDepth;
+    // trees under construction, with the pending key of every object.
+    private JsonValue[] containers = new JsonValue[16];
+    private String[] keys = new String[16];
+    private int depth;
+    private boolean colonPending;
+    // where the source of the reader begins in the whole input, errors are moved there.
+    private long base;
+    private int line = 1;
+    private int column = 1;
+
+    public SumiJsonFeeder(@Nullable SymbolTable symbols) {
+        this(symbols, JsonLimits.DEFAULT.maxDepth());
+    }
+
+    /**
+     * @param maxDepth the most objects and arrays which are nested in each other, deeper values are rejected
+     */
+    public SumiJsonFeeder(@Nullable SymbolTable symbols, int maxDepth) {
+        reader = new JsonTokenReader(EMPTY, symbols);
+        reader.setPartial(true);
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public void feed(ByteBuffer chunk) {
+        if (ended) {
+            throw new IllegalStateException("Input has ended");
+        }
+        if (!needInput) {
+            throw new IllegalStateException("The former chunk is not used up");
+        }
+        needInput = false;
+        if (refeeding) {
+            pending = null;
+            reader.resume(chunk);
+            return;
+        }
+        if (carryEnd == carryStart) {
+            readingCarry = false;
+            reader.resume(chunk);
+            return;
+        }
+        final var len = chunk.remaining();
+        reserve(len);
+        chunk.get(chunk.position(), carry, carryEnd, len);
+        carryEnd += len;
+        readingCarry = true;
+        reader.resume(ByteBuffer.wrap(carry, carryStart, carryEnd - carryStart));
+    }
+
+    /**
+     * Makes room for {@code len} bytes after the carry. The carry is moved to the front only when the array is full,
+     * and the array grows while the carry takes more than a half of it.
+     */
+    private void reserve(int len) {
+        if (carryEnd + len <= carry.length) {
+            return;
+        }
+        final var live = carryEnd - carryStart;
+        final var target = live + len > carry.length / 2
+                ? new byte[Math.max(carry.length * 2, (live + len) * 2)]
+                : carry;
+        System.arraycopy(carry, carryStart, target, 0, live);
+        carry = target;
+        carryStart = 0;
+        carryEnd = live;
+    }
+
+    @Override
+    public void endOfInput() {
+        if (ended) {
+            return;
+        }
+        ended = true;
+        reader.setPartial(false);
+        if (needInput) {
+            reader.resume(pending != null ? pending : ByteBuffer.wrap(carry, carryStart, carryEnd - carryStart));
+            readingCarry = pending == null;
+            needInput = false;
+        }
+    }
+
+    @Override
+    public int nextEvent() {
+        try {
+            return advance();
+        } catch (JsonParseException e) {
+            throw located(e);
+        }
+    }
+
+    private int advance() {
+        if (needInput) {
+            return NOT_AVAILABLE;
+        }
+        if (skipDepth != 0 && skip() == NOT_AVAILABLE) {
+            return NOT_AVAILABLE;
+        }
+        return read();
+    }
+
+    @Override
+    public int currentEvent() {
+        return needInput ? NOT_AVAILABLE : reader.currentEvent();
+    }
+
+    @Override
+    public void skipChildren() {
+        final var event = currentEvent();
+        if (event != OBJECT_BEGIN && event != ARRAY_BEGIN) {
+            return;
+        }
+        skipDepth = 1;
+        try {
+            skip();
+        } catch (JsonParseException e) {
+            throw located(e);
+        }
+    }
+
+    private int skip() {
+        while (skipDepth != 0) {
+            switch (read()) {
+                case OBJECT_BEGIN, ARRAY_BEGIN -> skipDepth++;
+                case OBJECT_END, ARRAY_END -> skipDepth--;
+                case NOT_AVAILABLE -> {
+                    return NOT_AVAILABLE;
+                }
+                case EOF -> throw reader.error("Unexcepted EOF when skipping children.");
+            }
+        }
+        return reader.currentEvent();
+    }
+
+    private int read() {
+        final var event = reader.nextEvent();
+        if (event == NOT_AVAILABLE) {
+            suspend();
+        }
+        return event;
+    }
+
+    /**
+     * Keeps the rest of the input, which starts with the incomplete token. It's already in place if the reader is on
+     * the carry, only its start is moved then.
+     */
+    private void suspend() {
+        final var source = reader.source();
+        final var from = reader.position();
+        needInput = true;
+        consume(source, from);
+        if (refeeding) {
+            pending = source.duplicate().position(from);
+            return;
+        }
+        if (readingCarry) {
+            carryStart = from;
+            return;
+        }
+        final var len = source.limit() - from;
+        carryStart = 0;
+        carryEnd = 0;
+        reserve(len);
+        source.get(from, carry, 0, len);
+        carryEnd = len;
+    }
+
+    /**
+     * Makes the source responsible for the incomplete token at the end of a chunk. Every chunk after the first has to
+     * start with the last {@link #pendingLength()} bytes of the former chunk.
+     */
+    void setRefeeding(boolean refeeding) {
+        this.refeeding = refeeding;
+    }
+
+    /**
+     * @return count of bytes at the end of the former chunk which are not used up yet
+     */
+    int pendingLength() {
+        return needInput && refeeding && pending != null ? pending.remaining() : 0;
+    }
+
+    /**
+     * Moves the location of the source past the bytes before {@code to}, which are used up.
+     */
+    private void consume(ByteBuffer source, int to) {
+        final var from = source.position();
+        for (int i = from; i < to; i++) {
+            final var b = source.get(i);
+            if (b == '\n') {
+                line++;
+                column = 1;
+            } else if ((b & 0xC0) != 0x80) {
+                column++;
+            }
+        }
+        base += to - from;
+    }
+
+    /**
+     * Errors are thrown against the source of the reader, which is only a part of the input.
+     */
+    private JsonParseException located(JsonParseException e) {
+        return new JsonParseException(e, base, line, column);
+    }
+
+    @Override
+    public JsonParseException error(String message) {
+        return located(reader.error(message));
+    }
+
+    @Override
+    public JsonValue nextValue() {
+        try {
+            return readValue();
+        } catch (JsonParseException e) {
+            throw located(e);
+        }
+    }
+
+    private JsonValue readValue() {
+        while (true) {
+            final var event = advance();
+            final JsonValue value;
+            switch (event) {
+                case NOT_AVAILABLE -> {
+                    return null;
+                }
+                case EOF -> {
+                    if (depth != 0) {
+                        throw reader.error("Unclosed JSON container");
+                    }
+                    return null;
+                }
+                case COMMA -> {
+                    continue;
+                }
+                case SEMICOLON -> {
+                    if (!colonPending) {
+                        throw reader.error("Unexcepted token: SEMICOLON");
+                    }
+                    colonPending = false;
+                    continue;
+                }
+                case OBJECT_BEGIN, ARRAY_BEGIN -> {
+                    requireValue(event);
+                    push(event == OBJECT_BEGIN ? new JsonObject() : new JsonArray());
+                    continue;
+                }
+                case OBJECT_END, ARRAY_END -> value = pop(event);
+                case LITERAL_TEXT -> {
+                    if (depth != 0 && containers[depth - 1] instanceof JsonObject && keys[depth - 1] == null) {
+                        keys[depth - 1] = reader.currentKey();
+                        colonPending = true;
+                        continue;
+                    }
+                    value = new JsonString(reader.currentString());
+                }
+                case LITERAL_INTEGER, LITERAL_DOUBLE -> value = reader.currentNumber();
+                case NULL -> value = JsonNull.NULL;
+                case TRUE -> value = JsonBoolean.TRUE;
+                case FALSE -> value = JsonBoolean.FALSE;
+                default -> throw reader.error("Impossible token is encountered: " + TokenType.values()[event]);
+            }
+            if (event != OBJECT_END && event != ARRAY_END) {
+                requireValue(event);
+            }
+            if (depth == 0) {
+                return value;
+            }
+            final var parent = containers[depth - 1];
+            if (parent instanceof JsonObject obj) {
+                obj.addProperty(keys[depth - 1], value);
+                keys[depth - 1] = null;
+            } else {
+                ((JsonArray) parent).add(value);
+            }
+        }
+    }
+
+    /**
+     * Checks that a value is allowed here, which is not the case between a key and its colon, or in place of a key.
+     */
+    private void requireValue(int event) {
+        if (colonPending) {
+            throw reader.error("Except SEMICOLON but encounter " + TokenType.values()[event]);
+        }
+        if (depth != 0 && containers[depth - 1] instanceof JsonObject && keys[depth - 1] == null) {
+            throw reader.error("Unexcepted token in object: " + TokenType.values()[event]);
+        }
+    }
+
+    private void push(JsonValue container) {
+        if (depth >= maxDepth) {
+            throw new JsonParseException("Nesting is deeper than " + maxDepth, reader.source(), reader.tokenStart());
+        }
+        if (depth == containers.length) {
+            containers = Arrays.copyOf(containers, depth * 2);
+            keys = Arrays.copyOf(keys, depth * 2);
+        }
+        containers[depth] = container;
+        keys[depth++] = null;
+    }
+
+    private JsonValue pop(int event) {
+        if (depth == 0) {
+            throw reader.error("Unexcepted token: " + TokenType.values()[event]);
+        }
+        final var container = containers[--depth];
+        if ((event == OBJECT_END) != container instanceof JsonObject) {
+            throw reader.error("Mismatched end of container: " + TokenType.values()[event]);
+        }
+        if (colonPending || keys[depth] != null) {
+            throw reader.error("Excepted a value after the key");
+        }
+        containers[depth] = null;
+        return container;
+    }
+
+    @Override
+    public ByteBuffer source() {
+        return reader.source();
+    }
+
+    @Override
+    public int tokenStart() {
+        return reader.tokenStart();
+    }
+
+    @Override
+    public int tokenEnd() {
+        return reader.tokenEnd();
+    }
+
+    @Override
+    public boolean hasEscapes() {
+        return reader.hasEscapes();
+    }
+
+    @Override
+    public int position() {
+        return reader.position();
+    }
+
+    @Override
+    public String currentString() {
+        try {
+            return reader.currentString();
+        } catch (JsonParseException e) {
+            throw located(e);
+        }
+    }
+
+    @Override
+    public String currentKey() {
+        try {
+            return reader.currentKey();
+        } catch (JsonParseException e) {
+            throw located(e);
+        }
+    }
+
+    @Override
+    public int currentInt() {
+        try {
+            return reader.currentInt();
+        } catch (JsonParseException e) {
+            throw located(e);
+        }
+    }
+
+    @Override
+    public long currentLong() {
+        try {
+            return reader.currentLong();
+        } catch (JsonParseException e) {
+            throw located(e);
+        }
+    }
+
+    @Override
+    public double currentDouble() {
+        try {
+            return reader.currentDouble();
+        } catch (JsonParseException e) {
+            throw located(e);
+        }
+    }
+
+    @Override
+    public BigDecimal currentBigDecimal() {
+        try {
+            return reader.currentBigDecimal();
+        } catch (JsonParseException e) {
+            throw located(e);
+        }
+    }
+
+    @Override
+    public JsonNumber currentNumber() {
+        try {
+            return reader.currentNumber();
+        } catch (JsonParseException e) {
+            throw located(e);
+        }
+    }
+}
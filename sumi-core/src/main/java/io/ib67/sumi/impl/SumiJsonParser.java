@@ -24,20 +24,89 @@
 
 package io.ib67.sumi.impl;
 
+import io.ib67.sumi.api.JsonCursor;
+import io.ib67.sumi.api.JsonFeeder;
+import io.ib67.sumi.api.JsonLimits;
 import io.ib67.sumi.api.JsonParser;
+import io.ib67.sumi.api.JsonQuery;
+import io.ib67.sumi.api.JsonValidation;
+import io.ib67.sumi.api.JsonWriter;
+import io.ib67.sumi.api.Projection;
+import io.ib67.sumi.api.ReusableJsonParser;
+import io.ib67.sumi.api.SymbolTable;
+import io.ib67.sumi.api.codec.JsonCodec;
+import io.ib67.sumi.api.codec.JsonCodecs;
+import io.ib67.sumi.api.exception.JsonParseException;
 import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.api.object.primitive.JsonNull;
+import io.ib67.sumi.api.tape.JsonTape;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class SumiJsonParser implements JsonParser {
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    /**
+     * Size of a mapped window, for files which can't be mapped as one buffer.
+     */
+    private static final int MAPPING_WINDOW_SIZE = 1 << 30;
+    @Nullable
+    final SymbolTable symbols;
+    final int maxDepth;
+    private final ReusableSumiParser.Pool pool;
+
+    public SumiJsonParser() {
+        this(SymbolTable.shared());
+    }
+
+    /**
+     * @param symbols table for keys of objects, or null to decode every key
+     */
+    public SumiJsonParser(@Nullable SymbolTable symbols) {
+        this(symbols, JsonLimits.DEFAULT.maxDepth());
+    }
+
+    /**
+     * @param maxDepth the most objects and arrays which are nested in each other, deeper values are rejected
+     */
+    public SumiJsonParser(@Nullable SymbolTable symbols, int maxDepth) {
+        this.symbols = symbols;
+        this.maxDepth = maxDepth;
+        pool = new ReusableSumiParser.Pool(symbols, maxDepth);
+    }
+
+    JsonTokenReader tokens(ByteBuffer buffer) {
+        return new JsonTokenReader(buffer, symbols);
+    }
+
     @Override
     public JsonValue parseString(String input) {
-        return parseBytes(input.getBytes());
+        return parseBytes(input.getBytes(StandardCharsets.UTF_8));
     }
 
     @Override
     public JsonValue parseBuffer(ByteBuffer buffer) {
-        return new JsonReader(new JsonTokenReader(buffer)).readValue();
+        final var parser = pool.acquire(buffer);
+        try {
+            return parser.parse();
+        } finally {
+            pool.release(parser);
+        }
     }
 
     @Override
@@ -45,18 +114,257 @@ public class SumiJsonParser implements JsonParser {
         return parseBuffer(ByteBuffer.wrap(bytes));
     }
 
+    @Override
+    public JsonValue parseParallel(ByteBuffer buffer) {
+        return ParallelArrayParser.parse(buffer, symbols, maxDepth);
+    }
+
+    @Override
+    public JsonValue parseStream(InputStream in) {
+        return parseChunks(new SumiJsonFeeder(symbols, maxDepth), streamChunks(in));
+    }
+
+    @Override
+    public JsonValue parseChannel(ReadableByteChannel channel) {
+        final var chunk = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+        return parseChunks(new SumiJsonFeeder(symbols, maxDepth), () -> channel.read(chunk.clear()) < 0 ? null : chunk.flip());
+    }
+
+    @Override
+    public JsonValue parseFile(Path path) {
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final var size = channel.size();
+            if (size <= Integer.MAX_VALUE) {
+                return parseBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+            final var feeder = new SumiJsonFeeder(symbols, maxDepth);
+            return parseChunks(feeder, mappedWindows(channel, size, feeder));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Stream<JsonValue> parseLines(ByteBuffer buffer) {
+        return StreamSupport.stream(new JsonLineSpliterator(buffer, buffer.position(), buffer.limit(), symbols, maxDepth), false);
+    }
+
+    @Override
+    public Stream<JsonValue> parseLines(InputStream in) {
+        return StreamSupport.stream(chunkedValues(new SumiJsonFeeder(symbols, maxDepth), streamChunks(in)), false);
+    }
+
+    @Override
+    public Stream<JsonValue> parseLines(Path path) {
+        try {
+            final var channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                final var size = channel.size();
+                if (size <= Integer.MAX_VALUE) {
+                    // the mapping stays valid after the channel is closed.
+                    final var mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    channel.close();
+                    return parseLines(mapping);
+                }
+                final var feeder = new SumiJsonFeeder(symbols, maxDepth);
+                return StreamSupport.stream(chunkedValues(feeder, mappedWindows(channel, size, feeder)), false).onClose(() -> {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ChunkSource streamChunks(InputStream in) {
+        final var buf = new byte[STREAM_BUFFER_SIZE];
+        final var chunk = ByteBuffer.wrap(buf);
+        return () -> {
+            final var n = in.read(buf);
+            return n < 0 ? null : chunk.limit(n).position(0);
+        };
+    }
+
+    /**
+     * Maps the file window by window. The token cut at the end of a window is mapped again at the start of the next
+     * one, instead of being copied to the heap.
+     */
+    private static ChunkSource mappedWindows(FileChannel channel, long size, SumiJsonFeeder feeder) {
+        feeder.setRefeeding(true);
+        final var offset = new long[1];
+        return () -> {
+            if (offset[0] >= size) {
+                return null;
+            }
+            final var pending = feeder.pendingLength();
+            final var start = offset[0] - pending;
+            final var len = Math.min(size - start, Math.min(Integer.MAX_VALUE, (long) pending + MAPPING_WINDOW_SIZE));
+            if (len == pending) {
+                throw feeder.error("Token is longer than " + Integer.MAX_VALUE + " bytes");
+            }
+            final var window = channel.map(FileChannel.MapMode.READ_ONLY, start, len);
+            offset[0] = start + len;
+            return window;
+        };
+    }
+
+    /**
+     * Feeds chunks until the first value is complete. The same buffer is refilled every time, the feeder only keeps
+     * the incomplete token at its end.
+     */
+    private static JsonValue parseChunks(SumiJsonFeeder feeder, ChunkSource source) {
+        final var value = nextValue(feeder, source);
+        if (value == null) {
+            throw feeder.error("TokenStream is ended");
+        }
+        return value;
+    }
+
+    private static Spliterator<JsonValue> chunkedValues(SumiJsonFeeder feeder, ChunkSource source) {
+        return new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super JsonValue> action) {
+                final var value = nextValue(feeder, source);
+                if (value == null) {
+                    return false;
+                }
+                action.accept(value);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @return the next value, or null at the end of the input
+     */
+    private static JsonValue nextValue(SumiJsonFeeder feeder, ChunkSource source) {
+        while (true) {
+            final var value = feeder.nextValue();
+            if (value != null) {
+                return value;
+            }
+            if (feeder.currentEvent() == JsonCursor.EOF) {
+                return null;
+            }
+            final ByteBuffer chunk;
+            try {
+                chunk = source.next();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (chunk == null) {
+                feeder.endOfInput();
+            } else {
+                feeder.feed(chunk);
+            }
+        }
+    }
+
+    @Override
+    public JsonValue parseLazy(ByteBuffer buffer) {
+        return new LazyJsonReader(tokens(buffer), maxDepth).readValue();
+    }
+
+    @Override
+    public JsonTape parseTape(ByteBuffer buffer) {
+        return JsonTape.read(tokens(buffer), maxDepth);
+    }
+
+    @Override
+    public List<JsonValue> query(ByteBuffer buffer, String pointer) {
+        return query(buffer, JsonQuery.compile(pointer));
+    }
+
+    @Override
+    public List<JsonValue> query(ByteBuffer buffer, JsonQuery query) {
+        return query.select(tokens(buffer));
+    }
+
+    @Override
+    public JsonValue parseProjected(ByteBuffer buffer, Projection projection) {
+        return projection.read(tokens(buffer));
+    }
+
+    @Override
+    public JsonValidation validate(ByteBuffer buffer, JsonLimits limits) {
+        return JsonValidator.validate(buffer, limits);
+    }
+
+    @Override
+    public JsonFeeder feeder() {
+        return new SumiJsonFeeder(symbols, maxDepth);
+    }
+
+    @Override
+    public JsonCursor cursor(ByteBuffer buffer) {
+        return tokens(buffer);
+    }
+
+    @Override
+    public ReusableJsonParser reusable() {
+        return new ReusableSumiParser(symbols, maxDepth);
+    }
+
+    @FunctionalInterface
+    private interface ChunkSource {
+        /**
+         * @return the next chunk, or null at the end
+         */
+        ByteBuffer next() throws IOException;
+    }
+
     @Override
     public <T> T fromJson(String input, Class<T> typeOfT) {
-        return null;
+        return bind(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)), JsonCodecs.get(typeOfT));
+    }
+
+    @Override
+    public <T> T fromJson(ByteBuffer buffer, Class<T> typeOfT) {
+        return bind(buffer, JsonCodecs.get(typeOfT));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T fromJson(ByteBuffer buffer, Type typeOfT) {
+        return bind(buffer, (JsonCodec<T>) JsonCodecs.get(typeOfT));
     }
 
+    /**
+     * Trees are bound by writing them back to json, so the codecs only have to read tokens.
+     */
     @Override
     public <T> T fromJsonTree(JsonValue tree, Class<T> typeOfT) {
-        return null;
+        return bind(ByteBuffer.wrap(JsonWriter.toBytes().value(tree).toByteArray()), JsonCodecs.get(typeOfT));
     }
 
     @Override
     public JsonValue toJson(Object object) {
-        return null;
+        if (object == null) {
+            return JsonNull.NULL;
+        }
+        final var writer = JsonWriter.toBytes();
+        toJson(object, writer);
+        return parseBytes(writer.toByteArray());
+    }
+
+    @Override
+    public void toJson(@Nullable Object object, JsonWriter writer) {
+        JsonCodecs.get(Object.class).write(writer, object);
+    }
+
+    private <T> T bind(ByteBuffer buffer, JsonCodec<T> codec) {
+        final var parser = pool.acquire(buffer);
+        try {
+            return parser.bind(codec);
+        } finally {
+            pool.release(parser);
+        }
     }
 }
@@ -0,0 +1,569 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import io.ib67.sumi.api.JsonWriter;
+import io.ib67.sumi.api.object.JsonObject;
+import io.ib67.sumi.api.object.JsonValue;
+import io.ib67.sumi.api.object.primitive.JsonArray;
+import io.ib67.sumi.api.object.primitive.JsonBoolean;
+import io.ib67.sumi.api.object.primitive.JsonNull;
+import io.ib67.sumi.api.object.primitive.JsonString;
+import io.ib67.sumi.api.object.primitive.numbers.JsonBigDecimal;
+import io.ib67.sumi.api.object.primitive.numbers.JsonDouble;
+import io.ib67.sumi.api.object.primitive.numbers.JsonInt;
+import io.ib67.sumi.api.object.primitive.numbers.JsonLong;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+public class SumiJsonWriter implements JsonWriter {
+    private static final int IN_MEMORY_BUFFER_SIZE = 256;
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * Chars of a text are encoded in chunks, so that the space for the worst case can be reserved once per chunk.
+     */
+    private static final int TEXT_CHUNK = 512;
+    private static final int MAX_BYTES_PER_CHAR = 6;
+    /**
+     * The char after the backslash for ASCII chars which must be escaped, {@code u} for the {@code \}{@code u00XX}
+     * form, or zero.
+     */
+    private static final byte[] ESCAPES = new byte[128];
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] DIGIT_PAIRS = new byte[200];
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final long NEGATIVE_ZERO = Double.doubleToRawLongBits(-0.0);
+    /**
+     * Below it, integral doubles are formatted as plain digits by {@link Double#toString(double)}.
+     */
+    private static final double MAX_PLAIN_DOUBLE = 1e7;
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ESCAPES[c] = 'u';
+        }
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\r'] = 'r';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\f'] = 'f';
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[i * 2] = (byte) ('0' + i / 10);
+            DIGIT_PAIRS[i * 2 + 1] = (byte) ('0' + i % 10);
+        }
+    }
+
+    /**
+     * Null for writers into memory.
+     */
+    private final Sink sink;
+    private byte[] buf;
+    private int count;
+    private boolean needComma;
+    // for doubles which Double.toString would format in the scientific notation, or with fractions.
+    private StringBuilder numberBuf;
+    // containers of the trees being written: an array with the index of its next element, or the members of an object.
+    private Object[] frames = new Object[16];
+    private int[] indexes = new int[16];
+    private int depth;
+
+    public SumiJsonWriter() {
+        this(null, IN_MEMORY_BUFFER_SIZE);
+    }
+
+    private SumiJsonWriter(Sink sink, int bufferSize) {
+        this.sink = sink;
+        this.buf = new byte[bufferSize];
+    }
+
+    public static SumiJsonWriter to(ByteBuffer buffer) {
+        return new SumiJsonWriter(new Sink() {
+            @Override
+            public void write(byte[] bytes, int len) {
+                buffer.put(bytes, 0, len);
+            }
+        }, BUFFER_SIZE);
+    }
+
+    public static SumiJsonWriter to(OutputStream out) {
+        return new SumiJsonWriter(new Sink() {
+            @Override
+            public void write(byte[] bytes, int len) throws IOException {
+                out.write(bytes, 0, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                out.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.close();
+            }
+        }, BUFFER_SIZE);
+    }
+
+    public static SumiJsonWriter to(WritableByteChannel channel) {
+        return new SumiJsonWriter(new Sink() {
+            @Override
+            public void write(byte[] bytes, int len) throws IOException {
+                final var src = ByteBuffer.wrap(bytes, 0, len);
+                while (src.hasRemaining()) {
+                    channel.write(src);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        }, BUFFER_SIZE);
+    }
+
+    @Override
+    public JsonWriter beginObject() {
+        comma();
+        ensure(1);
+        buf[count++] = Constants.OBJECT_BEGIN;
+        return this;
+    }
+
+    @Override
+    public JsonWriter endObject() {
+        ensure(1);
+        buf[count++] = Constants.OBJECT_END;
+        needComma = true;
+        return this;
+    }
+
+    @Override
+    public JsonWriter beginArray() {
+        comma();
+        ensure(1);
+        buf[count++] = Constants.ARRAY_BEGIN;
+        return this;
+    }
+
+    @Override
+    public JsonWriter endArray() {
+        ensure(1);
+        buf[count++] = Constants.ARRAY_END;
+        needComma = true;
+        return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) {
+        comma();
+        writeText(name);
+        ensure(1);
+        buf[count++] = Constants.SEMICOLON;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        comma();
+        writeText(value);
+        needComma = true;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) {
+        comma();
+        writeLong(value);
+        needComma = true;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException(value + " is not a valid json number");
+        }
+        comma();
+        if (value == (long) value && Math.abs(value) < MAX_PLAIN_DOUBLE
+                && Double.doubleToRawLongBits(value) != NEGATIVE_ZERO) {
+            writeLong((long) value);
+            ensure(2);
+            buf[count++] = '.';
+            buf[count++] = '0';
+        } else {
+            if (numberBuf == null) {
+                numberBuf = new StringBuilder(24);
+            }
+            numberBuf.setLength(0);
+            writeAscii(numberBuf.append(value));
+        }
+        needComma = true;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) {
+        comma();
+        writeBytes(value ? TRUE : FALSE);
+        needComma = true;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(BigDecimal value) {
+        if (value == null) {
+            return nullValue();
+        }
+        comma();
+        writeAscii(value.toString());
+        needComma = true;
+        return this;
+    }
+
+    @Override
+    public JsonWriter nullValue() {
+        comma();
+        writeBytes(NULL);
+        needComma = true;
+        return this;
+    }
+
+    /**
+     * Writes trees without recursion. Every round writes one value, then finds the next one in the containers which
+     * are open, closing those that are used up.
+     */
+    @Override
+    public JsonWriter value(JsonValue value) {
+        final var base = depth;
+        var next = value;
+        while (true) {
+            if (next instanceof JsonObject obj) {
+                beginObject();
+                push(obj.getAsMap().entrySet().iterator());
+            } else if (next instanceof NumericJsonArray numbers && (numbers.ints() != null || numbers.longs() != null || numbers.doubles() != null)) {
+                writeNumbers(numbers);
+            } else if (next instanceof JsonArray arr) {
+                beginArray();
+                push(arr);
+            } else {
+                writeScalar(next);
+            }
+            while (true) {
+                if (depth == base) {
+                    return this;
+                }
+                final var top = depth - 1;
+                if (frames[top] instanceof JsonArray arr) {
+                    // by index, so lazy arrays are not copied.
+                    final var i = indexes[top];
+                    if (i < arr.size()) {
+                        indexes[top] = i + 1;
+                        next = arr.get(i);
+                        break;
+                    }
+                    endArray();
+                } else {
+                    @SuppressWarnings("unchecked")
+                    final var members = (Iterator<Map.Entry<String, JsonValue>>) frames[top];
+                    if (members.hasNext()) {
+                        final var member = members.next();
+                        name(member.getKey());
+                        next = member.getValue();
+                        break;
+                    }
+                    endObject();
+                }
+                frames[top] = null;
+                depth = top;
+            }
+        }
+    }
+
+    private void push(Object frame) {
+        if (depth == frames.length) {
+            frames = Arrays.copyOf(frames, depth * 2);
+            indexes = Arrays.copyOf(indexes, depth * 2);
+        }
+        frames[depth] = frame;
+        indexes[depth++] = 0;
+    }
+
+    private void writeNumbers(NumericJsonArray numbers) {
+        beginArray();
+        if (numbers.ints() != null) {
+            for (final var i : numbers.ints()) {
+                value(i);
+            }
+        } else if (numbers.longs() != null) {
+            for (final var l : numbers.longs()) {
+                value(l);
+            }
+        } else {
+            for (final var d : numbers.doubles()) {
+                value(d);
+            }
+        }
+        endArray();
+    }
+
+    private void writeScalar(JsonValue value) {
+        if (value == null || value instanceof JsonNull) {
+            nullValue();
+        } else if (value instanceof JsonString str) {
+            value(str.getValue());
+        } else if (value instanceof JsonInt i) {
+            value(i.getValue());
+        } else if (value instanceof JsonLong l) {
+            value(l.getValue());
+        } else if (value instanceof JsonDouble d) {
+            value(d.getValue());
+        } else if (value instanceof JsonBigDecimal d) {
+            value(d.getValue());
+        } else {
+            value(((JsonBoolean) value).getAsBoolean());
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (sink == null) {
+            return;
+        }
+        drain();
+        try {
+            sink.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (sink == null) {
+            return;
+        }
+        drain();
+        try {
+            sink.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        requireInMemory();
+        return Arrays.copyOf(buf, count);
+    }
+
+    @Override
+    public void reset() {
+        requireInMemory();
+        count = 0;
+        needComma = false;
+        Arrays.fill(frames, 0, depth, null);
+        depth = 0;
+    }
+
+    /**
+     * @return the output as a String for writers into memory
+     */
+    @Override
+    public String toString() {
+        return sink == null ? new String(buf, 0, count, StandardCharsets.UTF_8) : super.toString();
+    }
+
+    private void requireInMemory() {
+        if (sink != null) {
+            throw new UnsupportedOperationException("Output is not kept in memory");
+        }
+    }
+
+    private void comma() {
+        if (needComma) {
+            ensure(1);
+            buf[count++] = Constants.COMMA;
+            needComma = false;
+        }
+    }
+
+    private void writeText(String s) {
+        ensure(1);
+        buf[count++] = Constants.DOUBLE_QUOTE;
+        final var len = s.length();
+        var i = 0;
+        while (i < len) {
+            final var end = Math.min(len, i + TEXT_CHUNK);
+            ensure((end - i) * MAX_BYTES_PER_CHAR);
+            final var buf = this.buf;
+            var count = this.count;
+            for (; i < end; i++) {
+                final var c = s.charAt(i);
+                if (c < 0x80) {
+                    final var escape = ESCAPES[c];
+                    if (escape == 0) {
+                        buf[count++] = (byte) c;
+                    } else {
+                        buf[count++] = Constants.ESCAPE;
+                        buf[count++] = escape;
+                        if (escape == 'u') {
+                            buf[count++] = '0';
+                            buf[count++] = '0';
+                            buf[count++] = HEX[c >>> 4];
+                            buf[count++] = HEX[c & 0xF];
+                        }
+                    }
+                } else if (c < 0x800) {
+                    buf[count++] = (byte) (0xC0 | c >>> 6);
+                    buf[count++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    // 4 bytes for 2 chars, which fit in the space reserved for them.
+                    final var cp = Character.toCodePoint(c, s.charAt(++i));
+                    buf[count++] = (byte) (0xF0 | cp >>> 18);
+                    buf[count++] = (byte) (0x80 | cp >>> 12 & 0x3F);
+                    buf[count++] = (byte) (0x80 | cp >>> 6 & 0x3F);
+                    buf[count++] = (byte) (0x80 | cp & 0x3F);
+                } else if (Character.isSurrogate(c)) {
+                    // unpaired, it can't be encoded in UTF-8 but an escape keeps it.
+                    buf[count++] = Constants.ESCAPE;
+                    buf[count++] = 'u';
+                    buf[count++] = HEX[c >>> 12];
+                    buf[count++] = HEX[c >>> 8 & 0xF];
+                    buf[count++] = HEX[c >>> 4 & 0xF];
+                    buf[count++] = HEX[c & 0xF];
+                } else {
+                    buf[count++] = (byte) (0xE0 | c >>> 12);
+                    buf[count++] = (byte) (0x80 | c >>> 6 & 0x3F);
+                    buf[count++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+            this.count = count;
+        }
+        ensure(1);
+        buf[count++] = Constants.DOUBLE_QUOTE;
+    }
+
+    private void writeLong(long v) {
+        if (v == Long.MIN_VALUE) {
+            writeBytes(MIN_LONG);
+            return;
+        }
+        ensure(20);
+        if (v < 0) {
+            buf[count++] = '-';
+            v = -v;
+        }
+        final var len = digits(v);
+        var i = count + len;
+        while (v >= 100) {
+            final var q = v / 100;
+            final var r = (int) (v - q * 100) << 1;
+            buf[--i] = DIGIT_PAIRS[r + 1];
+            buf[--i] = DIGIT_PAIRS[r];
+            v = q;
+        }
+        if (v >= 10) {
+            buf[--i] = DIGIT_PAIRS[((int) v << 1) + 1];
+            buf[--i] = DIGIT_PAIRS[(int) v << 1];
+        } else {
+            buf[--i] = (byte) ('0' + v);
+        }
+        count += len;
+    }
+
+    private static int digits(long v) {
+        var len = 1;
+        for (long p = 10; len < 19 && v >= p; p *= 10) {
+            len++;
+        }
+        return len;
+    }
+
+    private void writeAscii(CharSequence s) {
+        final var len = s.length();
+        ensure(len);
+        for (int i = 0; i < len; i++) {
+            buf[count++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, count, bytes.length);
+        count += bytes.length;
+    }
+
+    private void ensure(int n) {
+        if (count + n <= buf.length) {
+            return;
+        }
+        if (sink != null) {
+            drain();
+            if (n <= buf.length) {
+                return;
+            }
+        }
+        buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + n));
+    }
+
+    private void drain() {
+        if (count == 0) {
+            return;
+        }
+        try {
+            sink.write(buf, count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        count = 0;
+    }
+
+    private interface Sink {
+        void write(byte[] bytes, int len) throws IOException;
+
+        default void flush() throws IOException {
+        }
+
+        default void close() throws IOException {
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+/**
+ * SIMD-within-a-register helpers. Every method works on 8 bytes loaded as a little-endian long,
+ * so the lowest set byte of a mask belongs to the first matching byte in the input.
+ */
+final class Swar {
+    static final long ONES = 0x0101010101010101L;
+    static final long HIGHS = 0x8080808080808080L;
+    private static final long LOWS = 0x7F7F7F7F7F7F7F7FL;
+
+    private static final long QUOTES = ONES * Constants.DOUBLE_QUOTE;
+    private static final long ESCAPES = ONES * Constants.ESCAPE;
+    private static final long SPACES = ONES * ' ';
+    private static final long NEW_LINES = ONES * '\n';
+    private static final long CARRIAGE_RETURNS = ONES * '\r';
+    private static final long TABS = ONES * '\t';
+    private static final long CASE_BIT = ONES * 0x20;
+    private static final long CONTROLS_END = ONES * 0x20;
+    private static final long BRACES_BEGIN = ONES * Constants.OBJECT_BEGIN;
+    private static final long BRACES_END = ONES * Constants.OBJECT_END;
+
+    private Swar() {
+    }
+
+    /**
+     * @return 0x80 in every byte which is zero. Exact for all bytes, unlike the borrowing variant.
+     */
+    static long zeroBytes(long x) {
+        return ~(((x & LOWS) + LOWS) | x | LOWS);
+    }
+
+    /**
+     * @return 0x80 in every byte which equals to the broadcast byte {@code pattern}
+     */
+    static long equalBytes(long word, long pattern) {
+        return zeroBytes(word ^ pattern);
+    }
+
+    /**
+     * @return a non-zero mask if any byte is a double quote or a backslash
+     */
+    static long quotesOrEscapes(long word) {
+        return equalBytes(word, QUOTES) | equalBytes(word, ESCAPES);
+    }
+
+    /**
+     * @return a non-zero mask if any byte is a double quote, a brace or a bracket
+     */
+    static long quotesOrBrackets(long word) {
+        // brackets differ from braces in 0x20 only.
+        final var folded = word | CASE_BIT;
+        return equalBytes(word, QUOTES) | equalBytes(folded, BRACES_BEGIN) | equalBytes(folded, BRACES_END);
+    }
+
+    /**
+     * @return a mask whose lowest byte is the first double quote, backslash, control char or non-ASCII byte. Bytes
+     * after it may be flagged falsely by the borrow.
+     */
+    static long textSpecials(long word) {
+        return quotesOrEscapes(word) | ((word - CONTROLS_END) | word) & HIGHS;
+    }
+
+    static long whitespaces(long word) {
+        return equalBytes(word, SPACES) | equalBytes(word, NEW_LINES)
+                | equalBytes(word, CARRIAGE_RETURNS) | equalBytes(word, TABS);
+    }
+
+    /**
+     * @return index of the first flagged byte in a mask
+     */
+    static int firstByte(long mask) {
+        return Long.numberOfTrailingZeros(mask) >>> 3;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * A strict UTF-8 decoder writing into {@code char[]}. Overlong forms, encoded surrogates and code points beyond
+ * U+10FFFF are rejected, unlike {@code new String(bytes, UTF_8)} which replaces them silently.
+ */
+final class Utf8 {
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private Utf8() {
+    }
+
+    /**
+     * @return index of the first non-ASCII byte, or {@code to}
+     */
+    static int skipAscii(byte[] src, int from, int to) {
+        var i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            final var mask = (long) LONG_VIEW.get(src, i) & Swar.HIGHS;
+            if (mask != 0) {
+                return i + Swar.firstByte(mask);
+            }
+        }
+        while (i < to && src[i] >= 0) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Decodes {@code src[from, to)} into {@code dst} from {@code at}. {@code dst} must have room for one char per byte.
+     *
+     * @return index after the last decoded char, or the complement of the index of the first malformed byte
+     */
+    static int decode(byte[] src, int from, int to, char[] dst, int at) {
+        var i = from;
+        var d = at;
+        while (i < to) {
+            final int b = src[i];
+            if (b >= 0) {
+                dst[d++] = (char) b;
+                i++;
+            } else if ((b & 0xE0) == 0xC0) {
+                if (b < (byte) 0xC2 || i + 1 >= to || !isContinuation(src[i + 1])) {
+                    return ~i;
+                }
+                dst[d++] = (char) (((b & 0x1F) << 6) | (src[i + 1] & 0x3F));
+                i += 2;
+            } else if ((b & 0xF0) == 0xE0) {
+                if (i + 2 >= to || !isContinuation(src[i + 1]) || !isContinuation(src[i + 2])) {
+                    return ~i;
+                }
+                final var c = (char) (((b & 0x0F) << 12) | ((src[i + 1] & 0x3F) << 6) | (src[i + 2] & 0x3F));
+                if (c < 0x800 || Character.isSurrogate(c)) {
+                    return ~i;
+                }
+                dst[d++] = c;
+                i += 3;
+            } else if ((b & 0xF8) == 0xF0) {
+                if (i + 3 >= to || !isContinuation(src[i + 1]) || !isContinuation(src[i + 2]) || !isContinuation(src[i + 3])) {
+                    return ~i;
+                }
+                final var cp = ((b & 0x07) << 18) | ((src[i + 1] & 0x3F) << 12) | ((src[i + 2] & 0x3F) << 6) | (src[i + 3] & 0x3F);
+                if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT || cp > Character.MAX_CODE_POINT) {
+                    return ~i;
+                }
+                dst[d++] = Character.highSurrogate(cp);
+                dst[d++] = Character.lowSurrogate(cp);
+                i += 4;
+            } else {
+                return ~i;
+            }
+        }
+        return d;
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+}
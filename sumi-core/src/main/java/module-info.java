@@ -4,5 +4,9 @@ module sumi.core {
     exports io.ib67.sumi.api.object.primitive;
     exports io.ib67.sumi.api.object.primitive.numbers;
     exports io.ib67.sumi.api.exception;
+    exports io.ib67.sumi.api.tape;
+    exports io.ib67.sumi.api.codec;
+    exports io.ib67.sumi.api.spi;
     requires org.jetbrains.annotations;
+    uses io.ib67.sumi.api.spi.ByteScanner;
 }
\ No newline at end of file
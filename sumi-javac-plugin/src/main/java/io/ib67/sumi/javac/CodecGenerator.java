@@ -0,0 +1,442 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.javac;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates the source of the codec for one {@code @SumiTarget} type.
+ * <p>
+ * Records are read into locals and created by their canonical constructor. Classes are created by their no-arg
+ * constructor, and every non-static, non-transient field is bound directly or through its getter and setter when
+ * the field is not accessible from the package. Codecs of lists, sets, maps and arrays are built once into static
+ * fields of the codec.
+ */
+final class CodecGenerator {
+    private static final String SUFFIX = "_SumiCodec";
+
+    private final ProcessingEnvironment env;
+    private final Element element;
+    private final List<Property> properties = new ArrayList<>();
+    /**
+     * Initializers of the static codec fields by their types.
+     */
+    private final Map<String, String> codecFields = new LinkedHashMap<>();
+    private TypeElement type;
+    private String packageName;
+    private boolean record;
+
+    CodecGenerator(ProcessingEnvironment env, Element element) {
+        this.env = env;
+        this.element = element;
+    }
+
+    /**
+     * @return false if the type can't be bound, the reasons are reported already
+     */
+    boolean collect() {
+        if (element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.RECORD) {
+            error(element, "@SumiTarget only applies to classes and records");
+            return false;
+        }
+        type = (TypeElement) element;
+        record = type.getKind() == ElementKind.RECORD;
+        packageName = env.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        final var valid = checkType();
+        return (record ? collectComponents() : collectFields()) && valid;
+    }
+
+    String codecName() {
+        return qualify(flatName(type) + SUFFIX);
+    }
+
+    private boolean checkType() {
+        var valid = true;
+        if (!type.getTypeParameters().isEmpty()) {
+            error(type, "Generic types are not supported by @SumiTarget");
+            valid = false;
+        }
+        for (Element e = type; e instanceof TypeElement t; e = e.getEnclosingElement()) {
+            if (t.getModifiers().contains(Modifier.PRIVATE)) {
+                error(type, "@SumiTarget types and their enclosing types must not be private");
+                valid = false;
+            }
+            if (t.getNestingKind() == NestingKind.MEMBER && t.getKind() == ElementKind.CLASS && !t.getModifiers().contains(Modifier.STATIC)) {
+                error(type, "@SumiTarget types and their enclosing types must not be inner classes");
+                valid = false;
+            }
+        }
+        if (!record) {
+            if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+                error(type, "@SumiTarget classes must not be abstract");
+                valid = false;
+            }
+            final var constructor = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                    .anyMatch(c -> c.getParameters().isEmpty() && accessible(c));
+            if (!constructor) {
+                error(type, "@SumiTarget classes need a non-private constructor without parameters");
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    private boolean collectComponents() {
+        var valid = true;
+        for (final var component : type.getRecordComponents()) {
+            final var name = component.getSimpleName().toString();
+            valid &= add(component, new Property(name, component.asType(), name + "()", null));
+        }
+        return valid;
+    }
+
+    private boolean collectFields() {
+        var valid = true;
+        final var names = new HashSet<String>();
+        final var methods = ElementFilter.methodsIn(env.getElementUtils().getAllMembers(type));
+        for (var t = type; t != null && !t.getQualifiedName().contentEquals("java.lang.Object"); t = superclass(t)) {
+            for (final var field : ElementFilter.fieldsIn(t.getEnclosedElements())) {
+                final var modifiers = field.getModifiers();
+                final var name = field.getSimpleName().toString();
+                // fields of subclasses hide the ones of superclasses.
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT) || !names.add(name)) {
+                    continue;
+                }
+                final var fieldType = field.asType();
+                final var capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+                String getter = null;
+                String setter = null;
+                if (accessible(field)) {
+                    getter = name;
+                    if (!modifiers.contains(Modifier.FINAL)) {
+                        setter = name + " = %s";
+                    }
+                }
+                for (final var method : methods) {
+                    if (method.getModifiers().contains(Modifier.STATIC) || !accessible(method)) {
+                        continue;
+                    }
+                    final var methodName = method.getSimpleName().toString();
+                    if (getter == null && method.getParameters().isEmpty() && isSameType(method.getReturnType(), fieldType)
+                            && (methodName.equals("get" + capitalized) || fieldType.getKind() == TypeKind.BOOLEAN && methodName.equals("is" + capitalized))) {
+                        getter = methodName + "()";
+                    }
+                    if (setter == null && method.getParameters().size() == 1 && methodName.equals("set" + capitalized)
+                            && isSameType(method.getParameters().get(0).asType(), fieldType)) {
+                        setter = methodName + "(%s)";
+                    }
+                }
+                if (getter == null) {
+                    error(field, "Field " + name + " is not accessible from the package and has no getter");
+                    valid = false;
+                    continue;
+                }
+                if (setter == null) {
+                    error(field, "Field " + name + " is final or not accessible from the package, and has no setter");
+                    valid = false;
+                    continue;
+                }
+                valid &= add(field, new Property(name, fieldType, getter, setter));
+            }
+        }
+        return valid;
+    }
+
+    private boolean add(Element source, Property property) {
+        if (readExpression(property.type) == null) {
+            error(source, "Type " + property.type + " of " + property.name + " is not supported yet");
+            return false;
+        }
+        properties.add(property);
+        return true;
+    }
+
+    String generate() {
+        final var typeName = type.getQualifiedName().toString();
+        final var simpleName = flatName(type) + SUFFIX;
+        final var sb = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("""
+                import io.ib67.sumi.api.JsonCursor;
+                import io.ib67.sumi.api.JsonWriter;
+                import io.ib67.sumi.api.codec.JsonCodec;
+                import io.ib67.sumi.api.codec.JsonCodecs;
+
+                /**
+                 * Generated by sumi-javac-plugin from {@link %1$s}, do not edit.
+                 */
+                public final class %2$s implements JsonCodec<%1$s> {
+                    public static final %2$s INSTANCE = new %2$s();
+                %3$s
+                    static {
+                        JsonCodecs.register(%1$s.class, INSTANCE);
+                    }
+
+                    private %2$s() {
+                    }
+
+                    @Override
+                    public %1$s read(JsonCursor cursor) {
+                        if (!JsonCodecs.beginObject(cursor)) {
+                            return null;
+                        }
+                """.formatted(typeName, simpleName, codecFieldDeclarations()));
+        if (record) {
+            for (int i = 0; i < properties.size(); i++) {
+                final var t = properties.get(i).type;
+                sb.append("        ").append(typeName(t)).append(" p").append(i).append(" = ")
+                        .append(t.getKind() == TypeKind.BOOLEAN ? "false" : t.getKind().isPrimitive() ? "0" : "null").append(";\n");
+            }
+        } else {
+            sb.append("        final var value = new ").append(typeName).append("();\n");
+        }
+        sb.append("""
+                        String key;
+                        while ((key = JsonCodecs.nextKey(cursor)) != null) {
+                            switch (key) {
+                """);
+        for (int i = 0; i < properties.size(); i++) {
+            final var property = properties.get(i);
+            final var read = readExpression(property.type);
+            sb.append("                case \"").append(escape(property.name)).append("\" -> ")
+                    .append(record ? "p" + i + " = " + read : "value." + property.setter.formatted(read)).append(";\n");
+        }
+        sb.append("""
+                                default -> cursor.skipChildren();
+                            }
+                        }
+                """);
+        if (record) {
+            sb.append("        return new ").append(typeName).append('(');
+            for (int i = 0; i < properties.size(); i++) {
+                sb.append(i == 0 ? "p" : ", p").append(i);
+            }
+            sb.append(");\n");
+        } else {
+            sb.append("        return value;\n");
+        }
+        sb.append("""
+                    }
+
+                    @Override
+                    public void write(JsonWriter writer, %s value) {
+                        if (value == null) {
+                            writer.nullValue();
+                            return;
+                        }
+                        writer.beginObject();
+                """.formatted(typeName));
+        for (final var property : properties) {
+            sb.append("        ").append(writeStatement(property)).append('\n');
+        }
+        sb.append("""
+                        writer.endObject();
+                    }
+                }
+                """);
+        return sb.toString();
+    }
+
+    private String readExpression(TypeMirror t) {
+        return switch (t.getKind()) {
+            case INT -> "cursor.currentInt()";
+            case LONG -> "cursor.currentLong()";
+            case DOUBLE -> "cursor.currentDouble()";
+            case FLOAT -> "(float) cursor.currentDouble()";
+            case SHORT -> "JsonCodecs.readShort(cursor)";
+            case BYTE -> "JsonCodecs.readByte(cursor)";
+            case BOOLEAN -> "JsonCodecs.readBoolean(cursor)";
+            case CHAR -> "JsonCodecs.readChar(cursor)";
+            case DECLARED, ARRAY -> {
+                if (isString(t)) {
+                    yield "JsonCodecs.readString(cursor)";
+                }
+                final var codec = codecOf(t);
+                yield codec == null ? null : codec + ".read(cursor)";
+            }
+            default -> null;
+        };
+    }
+
+    private String writeStatement(Property property) {
+        final var name = "writer.name(\"" + escape(property.name) + "\")";
+        final var value = "value." + property.getter;
+        return switch (property.type.getKind()) {
+            case FLOAT -> "JsonCodecs.writeFloat(" + name + ", " + value + ");";
+            case CHAR -> name + ".value(String.valueOf(" + value + "));";
+            case DECLARED, ARRAY -> isString(property.type)
+                    ? name + ".value(" + value + ");"
+                    : codecOf(property.type) + ".write(" + name + ", " + value + ");";
+            default -> name + ".value(" + value + ");";
+        };
+    }
+
+    /**
+     * @return an expression of the codec, or null if the type is not supported
+     */
+    private String codecOf(TypeMirror t) {
+        if (t.getKind() == TypeKind.ARRAY || !((DeclaredType) t).getTypeArguments().isEmpty()) {
+            final var initializer = elementCodecOf(t);
+            if (initializer == null) {
+                return null;
+            }
+            final var key = typeName(t);
+            codecFields.putIfAbsent(key, initializer);
+            return "C" + new ArrayList<>(codecFields.keySet()).indexOf(key);
+        }
+        final var element = (TypeElement) ((DeclaredType) t).asElement();
+        final var generated = element.getAnnotationMirrors().stream()
+                .anyMatch(a -> ((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(SumiTargetProcessor.SUMI_TARGET));
+        if (generated) {
+            final var elementPackage = env.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+            return (elementPackage.isEmpty() ? "" : elementPackage + ".") + flatName(element) + SUFFIX + ".INSTANCE";
+        }
+        return "JsonCodecs.get(" + element.getQualifiedName() + ".class)";
+    }
+
+    /**
+     * @return an initializer of the codec of a type argument or an array, or null if the type is not supported.
+     * Codecs of classes are looked up lazily, so the static initializers of codecs never depend on each other.
+     */
+    private String elementCodecOf(TypeMirror t) {
+        if (t.getKind() == TypeKind.ARRAY) {
+            final var component = ((ArrayType) t).getComponentType();
+            final var supported = component.getKind().isPrimitive() || component.getKind() == TypeKind.DECLARED
+                    ? component.getKind().isPrimitive() || ((DeclaredType) component).getTypeArguments().isEmpty()
+                    : elementCodecOf(component) != null;
+            return supported ? "JsonCodecs.lazy(" + typeName(t) + ".class)" : null;
+        }
+        if (t.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        final var arguments = ((DeclaredType) t).getTypeArguments();
+        final var name = ((TypeElement) ((DeclaredType) t).asElement()).getQualifiedName().toString();
+        if (arguments.isEmpty()) {
+            return "JsonCodecs.lazy(" + name + ".class)";
+        }
+        final var combinator = switch (name) {
+            case "java.util.List" -> "listOf";
+            case "java.util.Set" -> "setOf";
+            case "java.util.Map" -> isString(arguments.get(0)) ? "mapOf" : null;
+            default -> null;
+        };
+        final var element = combinator == null ? null : elementCodecOf(arguments.get(arguments.size() - 1));
+        return element == null ? null : "JsonCodecs." + combinator + "(" + element + ")";
+    }
+
+    private String codecFieldDeclarations() {
+        final var sb = new StringBuilder(codecFields.isEmpty() ? "" : "\n");
+        var i = 0;
+        for (final var field : codecFields.entrySet()) {
+            sb.append("    private static final JsonCodec<").append(field.getKey()).append("> C").append(i++)
+                    .append(" = ").append(field.getValue()).append(";\n");
+        }
+        return sb.toString();
+    }
+
+    private String typeName(TypeMirror t) {
+        if (t.getKind().isPrimitive()) {
+            return t.getKind().name().toLowerCase();
+        }
+        if (t.getKind() == TypeKind.ARRAY) {
+            return typeName(((ArrayType) t).getComponentType()) + "[]";
+        }
+        return ((DeclaredType) t).getTypeArguments().isEmpty()
+                ? ((TypeElement) ((DeclaredType) t).asElement()).getQualifiedName().toString()
+                : t.toString();
+    }
+
+    private boolean isString(TypeMirror t) {
+        return t.getKind() == TypeKind.DECLARED && ((TypeElement) ((DeclaredType) t).asElement()).getQualifiedName().contentEquals("java.lang.String");
+    }
+
+    private boolean isSameType(TypeMirror a, TypeMirror b) {
+        return env.getTypeUtils().isSameType(a, b);
+    }
+
+    private boolean accessible(Element member) {
+        final var modifiers = member.getModifiers();
+        return modifiers.contains(Modifier.PUBLIC) || !modifiers.contains(Modifier.PRIVATE)
+                && env.getElementUtils().getPackageOf(member).getQualifiedName().contentEquals(packageName);
+    }
+
+    private TypeElement superclass(TypeElement t) {
+        final var superclass = t.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    private String qualify(String simpleName) {
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    /**
+     * @return simple names of the type and its enclosing types, joined by underscores
+     */
+    private static String flatName(TypeElement t) {
+        final var name = t.getSimpleName().toString();
+        return t.getEnclosingElement() instanceof TypeElement enclosing ? flatName(enclosing) + "_" + name : name;
+    }
+
+    /**
+     * Escapes non-ASCII chars, so the generated source doesn't depend on the encoding of the compiler.
+     */
+    private static String escape(String s) {
+        final var sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            final var c = s.charAt(i);
+            if (c < 0x80) {
+                sb.append(c);
+            } else {
+                sb.append(String.format("\\u%04x", (int) c));
+            }
+        }
+        return sb.toString();
+    }
+
+    private void error(Element e, String message) {
+        env.getMessager().printMessage(Diagnostic.Kind.ERROR, message, e);
+    }
+
+    private record Property(String name, TypeMirror type, String getter, String setter) {
+    }
+}
@@ -24,7 +24,9 @@
 
 package io.ib67.sumi.api.serializer;
 
+import io.ib67.sumi.api.JsonCursor;
 import io.ib67.sumi.api.JsonParser;
+import io.ib67.sumi.api.codec.JsonCodecs;
 import io.ib67.sumi.api.exception.JsonParseException;
 import io.ib67.sumi.api.object.JsonValue;
 import org.jetbrains.annotations.ApiStatus;
@@ -32,4 +34,13 @@ import org.jetbrains.annotations.ApiStatus;
 @ApiStatus.AvailableSince("0.1.0")
 public interface JsonDeserializer<T> {
     T deserialize(JsonValue value, JsonParser parser) throws JsonParseException;
+
+    /**
+     * Reads a value whose first token is the current token of the cursor, and leaves the cursor on its last token.
+     * The default builds the tree of the value for {@link #deserialize(JsonValue, JsonParser)}, override it to bind the
+     * tokens directly.
+     */
+    default T deserialize(JsonCursor cursor, JsonParser parser) throws JsonParseException {
+        return deserialize(JsonCodecs.get(JsonValue.class).read(cursor), parser);
+    }
 }
@@ -25,6 +25,7 @@
 package io.ib67.sumi.api.serializer;
 
 import io.ib67.sumi.api.JsonParser;
+import io.ib67.sumi.api.JsonWriter;
 import io.ib67.sumi.api.exception.JsonParseException;
 import io.ib67.sumi.api.object.JsonValue;
 import org.jetbrains.annotations.ApiStatus;
@@ -33,4 +34,12 @@ import org.jetbrains.annotations.Nullable;
 @ApiStatus.AvailableSince("0.1.0")
 public interface JsonSerializer<T> {
     JsonValue serialize(@Nullable T t, JsonParser parser) throws JsonParseException;
+
+    /**
+     * Writes the value to the writer. The default writes the tree from {@link #serialize(Object, JsonParser)},
+     * override it to skip the tree.
+     */
+    default void serialize(@Nullable T t, JsonWriter writer, JsonParser parser) throws JsonParseException {
+        writer.value(serialize(t, parser));
+    }
 }
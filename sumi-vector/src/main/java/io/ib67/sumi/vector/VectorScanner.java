@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Kalculos Hub and Contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ib67.sumi.vector;
+
+import io.ib67.sumi.api.spi.ByteScanner;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Scans a vector of the preferred species at once. It leaves the tail shorter than one vector to the caller.
+ */
+public final class VectorScanner implements ByteScanner {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int LENGTH = SPECIES.length();
+
+    @Override
+    public int findQuoteOrEscape(byte[] array, int from, int to) {
+        var i = from;
+        for (; i + LENGTH <= to; i += LENGTH) {
+            final var m = quotesOrEscapes(ByteVector.fromArray(SPECIES, array, i));
+            if (m.anyTrue()) {
+                return i + m.firstTrue();
+            }
+        }
+        return i;
+    }
+
+    @Override
+    public int findQuoteOrEscape(ByteBuffer buffer, int from, int to) {
+        var i = from;
+        for (; i + LENGTH <= to; i += LENGTH) {
+            final var m = quotesOrEscapes(ByteVector.fromByteBuffer(SPECIES, buffer, i, ByteOrder.nativeOrder()));
+            if (m.anyTrue()) {
+                return i + m.firstTrue();
+            }
+        }
+        return i;
+    }
+
+    @Override
+    public int skipWhitespace(byte[] array, int from, int to) {
+        var i = from;
+        for (; i + LENGTH <= to; i += LENGTH) {
+            final var m = nonWhitespaces(ByteVector.fromArray(SPECIES, array, i));
+            if (m.anyTrue()) {
+                return i + m.firstTrue();
+            }
+        }
+        return i;
+    }
+
+    @Override
+    public int skipWhitespace(ByteBuffer buffer, int from, int to) {
+        var i = from;
+        for (; i + LENGTH <= to; i += LENGTH) {
+            final var m = nonWhitespaces(ByteVector.fromByteBuffer(SPECIES, buffer, i, ByteOrder.nativeOrder()));
+            if (m.anyTrue()) {
+                return i + m.firstTrue();
+            }
+        }
+        return i;
+    }
+
+    private static VectorMask<Byte> quotesOrEscapes(ByteVector v) {
+        return v.eq((byte) '"').or(v.eq((byte) '\\'));
+    }
+
+    private static VectorMask<Byte> nonWhitespaces(ByteVector v) {
+        return v.eq((byte) ' ').or(v.eq((byte) '\n')).or(v.eq((byte) '\r')).or(v.eq((byte) '\t')).not();
+    }
+}
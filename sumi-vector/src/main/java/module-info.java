@@ -0,0 +1,9 @@
+/**
+ * Wide scanning for sumi with {@code jdk.incubator.vector}. Sumi finds it at runtime when it's present, the JVM must be
+ * started with {@code --add-modules jdk.incubator.vector} if it's on the class path.
+ */
+module sumi.vector {
+    requires sumi.core;
+    requires jdk.incubator.vector;
+    provides io.ib67.sumi.api.spi.ByteScanner with io.ib67.sumi.vector.VectorScanner;
+}